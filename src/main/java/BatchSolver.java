@@ -0,0 +1,141 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles concurrently. At most {@code maxConcurrency} puzzles are solved at a time on a fixed pool of
+ * platform threads, and a puzzle that exceeds the timeout is interrupted and reported rather than holding up the rest.
+ * The timeout of a puzzle starts once a solver thread runs it. A puzzle that waits as long as its timeout without
+ * being picked up, because every solver thread is still busy with a solve that ignored its interrupt, times out too.
+ * Waiting for and reporting each puzzle happens on virtual threads; the solves themselves do not, as a CPU-bound
+ * virtual thread never yields its carrier and would starve the threads enforcing the timeouts.
+ */
+public class BatchSolver {
+
+    public record Puzzle(String id, List<String> rows) {}
+
+    public enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        TIMED_OUT,
+        FAILED
+    }
+
+    /**
+     * Outcome of one puzzle. The solution is only present when solved, the error only when failed.
+     */
+    public record Result(String id, Status status, Solution solution, Duration elapsed, Throwable error) {}
+
+    private final int maxConcurrency;
+    private final Duration timeout;
+    private final Function<Board, Solution> engine;
+
+    public BatchSolver(int maxConcurrency, Duration timeout) {
+        this(maxConcurrency, timeout, new Solver()::findSolution);
+    }
+
+    /**
+     * @param engine finds the solution of a board, or null if there is none; it must stop when interrupted
+     */
+    public BatchSolver(int maxConcurrency, Duration timeout, Function<Board, Solution> engine) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException(String.format("Concurrency must be positive, got %d.", maxConcurrency));
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.timeout = timeout;
+        this.engine = engine;
+    }
+
+    /**
+     * Solves every puzzle of the stream and hands each result to the consumer as soon as that puzzle is done, so
+     * results arrive in completion order. The stream is consumed lazily, only as fast as puzzles finish. The consumer
+     * is never called concurrently. Returns once every puzzle has been reported.
+     * <p>
+     * If the consumer throws, no further puzzles are taken from the stream, and the first exception it threw is
+     * rethrown once the puzzles already started have been reported.
+     */
+    public void solveAll(Stream<Puzzle> puzzles, Consumer<Result> results) throws InterruptedException {
+        var permits = new Semaphore(maxConcurrency);
+        var resultLock = new Object();
+        var failure = new AtomicReference<Throwable>();
+
+        var solvers = Executors.newFixedThreadPool(maxConcurrency, Thread.ofPlatform().name("batch-solver-", 0).daemon(true).factory());
+        try (var tasks = Executors.newVirtualThreadPerTaskExecutor()) {
+            var iterator = puzzles.iterator();
+            while (failure.get() == null && iterator.hasNext()) {
+                var puzzle = iterator.next();
+                permits.acquire();
+                tasks.execute(() -> {
+                    try {
+                        var result = solve(puzzle, solvers);
+                        synchronized (resultLock) {
+                            results.accept(result);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            // every puzzle has been reported; solves that ignored their interrupt are left to end on their daemon
+            // threads rather than waited for
+            solvers.shutdownNow();
+        }
+        if (failure.get() instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure.get() instanceof Error e) {
+            throw e;
+        }
+    }
+
+    private Result solve(Puzzle puzzle, ExecutorService solvers) {
+        long start = System.nanoTime();
+        Board board;
+        try {
+            board = Board.from(puzzle.rows());
+        } catch (RuntimeException e) {
+            return new Result(puzzle.id(), Status.FAILED, null, since(start), e);
+        }
+
+        // the timeout runs from when a solver thread picks the puzzle up, not from when it was queued behind a solve
+        // that ignored its interrupt, but the wait in the queue is bounded by the timeout as well
+        var running = new CompletableFuture<Long>();
+        var future = solvers.submit(() -> {
+            running.complete(System.nanoTime());
+            return engine.apply(board);
+        });
+        try {
+            long runStart = running.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            var solution = future.get(timeout.toNanos() - (System.nanoTime() - runStart), TimeUnit.NANOSECONDS);
+            var status = solution == null ? Status.UNSOLVABLE : Status.SOLVED;
+            return new Result(puzzle.id(), status, solution, since(start), null);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return new Result(puzzle.id(), Status.TIMED_OUT, null, since(start), null);
+        } catch (ExecutionException e) {
+            return new Result(puzzle.id(), Status.FAILED, null, since(start), e.getCause());
+        } catch (InterruptedException | CancellationException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return new Result(puzzle.id(), Status.FAILED, null, since(start), e);
+        }
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,256 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solver that first enumerates every finished position as an exact cover: each piece takes exactly one cat-safe
+ * placement, each cat is covered exactly once and every other cell at most once. It then searches breadth-first
+ * from the start and from all those goals at once, always growing the smaller side by a depth, until the two meet.
+ * Every move can be undone, so searching backwards uses the same moves. Both sides need only about half the depth,
+ * which on deep puzzles explores far fewer states than {@link Solver}.
+ * <p>
+ * Puzzles with more goals than the limit, typically many pieces far from any cat, are left to {@link Solver}, as are
+ * puzzles whose positions do not fit in a {@code long} key.
+ */
+public class BidirectionalSolver {
+
+    private static final int DEFAULT_MAX_GOALS = 1 << 20;
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final int maxGoals;
+
+    public BidirectionalSolver() {
+        this(DEFAULT_MAX_GOALS);
+    }
+
+    /**
+     * @param maxGoals number of distinct finished positions above which the breadth-first {@link Solver} is used
+     */
+    public BidirectionalSolver(int maxGoals) {
+        if (maxGoals < 1) {
+            throw new IllegalArgumentException(String.format("Goal limit must be positive, got %d.", maxGoals));
+        }
+        this.maxGoals = maxGoals;
+    }
+
+    public Board solve(Board board) {
+        var solution = findSolution(board);
+        return solution == null ? null : solution.finalBoard();
+    }
+
+    /**
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public Solution findSolution(Board board) {
+        if (board.isFinished()) {
+            return new Solution(board, List.of());
+        }
+        var goals = goals(board, maxGoals);
+        if (goals == null) {
+            return new Solver().findSolution(board);
+        }
+        if (goals.length == 0) {
+            return null;
+        }
+
+        var table = board.placementTable();
+        var forward = new Side(table, new long[]{board.encode()});
+        var backward = new Side(table, goals);
+        while (!forward.exhausted() && !backward.exhausted()) {
+            var grown = forward.layerSize() <= backward.layerSize() ? forward : backward;
+            var meeting = grown.expand(grown == forward ? backward : forward);
+            if (meeting != null) {
+                return grown == forward
+                        ? join(board, append(forward.store.path(meeting.index), meeting.child), backward.chain(meeting.other))
+                        : join(board, forward.store.path(meeting.other), prepend(meeting.child, backward.chain(meeting.index)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keys of all finished positions, one per set of positions that look the same, or null if there are more than
+     * the limit or the puzzle is not {@linkplain PlacementTable#isCompact() compact}.
+     */
+    static long[] goals(Board board, int maxGoals) {
+        return goals(board.placementTable(), maxGoals);
+    }
+
+    static long[] goals(PlacementTable table, int maxGoals) {
+        if (!table.isCompact()) {
+            return null;
+        }
+        int pieces = table.pieceCount();
+        int cells = table.rows() * table.cols();
+        long catMask = table.catMask();
+
+        var columns = new int[cells];
+        int cats = 0;
+        int others = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            columns[cell] = (catMask & 1L << cell) != 0 ? pieces + cats++ : others++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if ((catMask & 1L << cell) == 0) {
+                columns[cell] += pieces + cats;
+            }
+        }
+
+        var cover = new ExactCover(pieces + cats, others);
+        var rowPieces = new ArrayList<Integer>();
+        var rowPlacements = new ArrayList<Integer>();
+        for (int piece = 0; piece < pieces; piece++) {
+            for (int p = 0; p < table.placementCount(piece); p++) {
+                if (!table.isCatSafe(piece, p) || table.canonicalPlacement(piece, p) != p) {
+                    continue;
+                }
+                long mask = table.mask(piece, p);
+                var rowColumns = new int[Long.bitCount(mask) + 1];
+                rowColumns[0] = piece;
+                int i = 1;
+                for (long bits = mask; bits != 0; bits &= bits - 1) {
+                    rowColumns[i++] = columns[Long.numberOfTrailingZeros(bits)];
+                }
+                cover.addRow(rowColumns);
+                rowPieces.add(piece);
+                rowPlacements.add(p);
+            }
+        }
+
+        // swapping identical pieces gives the same goal, so covers are deduplicated on their canonical key
+        var seen = VisitedSet.onHeap(DEFAULT_EXPECTED_STATES);
+        var goals = new long[][]{new long[16]};
+        int[] count = {0};
+        boolean[] exceeded = {false};
+        var placements = new int[pieces];
+        cover.solve(rows -> {
+            for (int row : rows) {
+                placements[rowPieces.get(row)] = rowPlacements.get(row);
+            }
+            long key = table.encode(placements);
+            if (seen.add(table.canonicalKey(key))) {
+                if (count[0] == maxGoals) {
+                    exceeded[0] = true;
+                    return false;
+                }
+                if (count[0] == goals[0].length) {
+                    goals[0] = Arrays.copyOf(goals[0], count[0] * 2);
+                }
+                goals[0][count[0]++] = key;
+            }
+            return true;
+        });
+        return exceeded[0] ? null : Arrays.copyOf(goals[0], count[0]);
+    }
+
+    private static long[] append(long[] keys, long key) {
+        var res = Arrays.copyOf(keys, keys.length + 1);
+        res[keys.length] = key;
+        return res;
+    }
+
+    private static long[] prepend(long key, long[] keys) {
+        var res = new long[keys.length + 1];
+        res[0] = key;
+        System.arraycopy(keys, 0, res, 1, keys.length);
+        return res;
+    }
+
+    private static Solution join(Board board, long[] path, long[] chain) {
+        // the chain starts at a position that looks the same as the end of the path
+        var carried = board.placementTable().carryOver(path[path.length - 1], chain);
+        var res = Arrays.copyOf(path, path.length + carried.length - 1);
+        System.arraycopy(carried, 1, res, path.length, carried.length - 1);
+        return Solution.fromPath(board, res);
+    }
+
+    private record Meeting(int index, long child, int other, int moves) {}
+
+    /**
+     * One direction of the search: every explored state with the state it was reached from, and the canonical
+     * keys leading to them.
+     */
+    private static final class Side {
+        private final PlacementTable table;
+        private final StateStore store = new StateStore(DEFAULT_EXPECTED_STATES);
+        private final LongIntMap index = new LongIntMap(DEFAULT_EXPECTED_STATES);
+        private final int[] placements;
+        private int depth;
+        private int layerStart;
+        private int layerEnd;
+
+        private Side(PlacementTable table, long[] roots) {
+            this.table = table;
+            this.placements = new int[table.pieceCount()];
+            for (long root : roots) {
+                if (index.putIfAbsent(table.canonicalKey(root), store.size()) == LongIntMap.MISSING) {
+                    store.add(root, StateStore.NO_PARENT);
+                }
+            }
+            this.layerEnd = store.size();
+        }
+
+        private boolean exhausted() {
+            return layerStart == layerEnd;
+        }
+
+        private int layerSize() {
+            return layerEnd - layerStart;
+        }
+
+        /**
+         * Explores the next depth, returning the meeting with the fewest moves if this depth reaches the other side.
+         */
+        private Meeting expand(Side other) {
+            Meeting[] best = {null};
+            for (int head = layerStart; head < layerEnd; head++) {
+                if (head % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Solve was interrupted.");
+                }
+                long key = store.key(head);
+                table.decode(key, placements);
+                int parent = head;
+                table.forEachDistinctMove(placements, table.occupancy(placements), (piece, placement) -> {
+                    long child = table.withPlacement(key, piece, placement);
+                    long canonical = table.canonicalKey(child);
+                    int met = other.index.get(canonical);
+                    if (met != LongIntMap.MISSING) {
+                        int moves = depth + 1 + other.depthOf(met);
+                        if (best[0] == null || moves < best[0].moves()) {
+                            best[0] = new Meeting(parent, child, met, moves);
+                        }
+                    }
+                    if (index.putIfAbsent(canonical, store.size()) == LongIntMap.MISSING) {
+                        store.add(child, parent);
+                    }
+                });
+            }
+            depth++;
+            layerStart = layerEnd;
+            layerEnd = store.size();
+            return best[0];
+        }
+
+        private int depthOf(int state) {
+            int res = 0;
+            for (int i = store.parent(state); i != StateStore.NO_PARENT; i = store.parent(i)) {
+                res++;
+            }
+            return res;
+        }
+
+        /**
+         * Keys from the state back to its root.
+         */
+        private long[] chain(int state) {
+            var path = store.path(state);
+            var res = new long[path.length];
+            for (int i = 0; i < path.length; i++) {
+                res[i] = path[path.length - 1 - i];
+            }
+            return res;
+        }
+    }
+}
@@ -1,32 +1,109 @@
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Board {
 
     private static final char CAT_SYMBOL = '@';
     private static final char AIR_SYMBOL = '.';
+    private static final int PIECE_BITS = 0xfffff;
+    private static final int BOX_FLAG = 1 << 20;
+    private static final int CAT_FLAG = 1 << 21;
+    // Letter of each piece id in the text format: a to z, then every other lower case letter whose upper case form
+    // turns back into it, so puzzles can have far more than 26 pieces.
+    private static final String PIECE_LETTERS = IntStream.rangeClosed(Character.MIN_VALUE, Character.MAX_VALUE)
+            .filter(c -> Character.isLowerCase(c) && Character.toUpperCase(c) != c
+                    && Character.toLowerCase(Character.toUpperCase(c)) == c)
+            .mapToObj(Character::toString)
+            .collect(Collectors.joining());
 
-    private final Board previousState;
-    private final int rows;
-    private final int cols;
-    private final List<Piece> pieces;
-    private final List<Cat> cats;
+    private final int movesMade;
+    private final PlacementTable table;
+    private final int[] placements;
+    // Cell set of all covered cells, see PlacementTable.
+    private final long[] occupied;
+    // Zobrist hash of the position, kept up to date by makeMove
+    private final long hash;
+    // Per cell, built on first lookup: piece index + 1 in the low bits (0 if empty), plus box and cat flags.
+    private volatile int[] grid;
+    // Legal moves, built on first use. A board made by a move derives them from the parent's set when it had one.
+    private volatile MoveSet moves;
+    private MoveSet parentMoves;
+    private int movedPiece;
+    private int movedFrom;
 
-    private Board(Board previousState, int rows, int cols, List<Piece> pieces, List<Cat> cats) {
-        this.previousState = previousState;
-        this.rows = rows;
-        this.cols = cols;
-        this.pieces = pieces;
-        this.cats = cats;
+    private Board(int movesMade, PlacementTable table, int[] placements, long[] occupied, long hash) {
+        this.movesMade = movesMade;
+        this.table = table;
+        this.placements = placements;
+        this.occupied = occupied;
+        this.hash = hash;
     }
 
+    private static Board of(int movesMade, int rows, int cols, List<Piece> pieces, List<Cat> cats) {
+        for (var cat : cats) {
+            if (cat.row() < 0 || cat.row() >= rows || cat.column() < 0 || cat.column() >= cols) {
+                throw new IllegalArgumentException(String.format("Cat at %d,%d is outside the %dx%d board.",
+                        cat.row(), cat.column(), rows, cols));
+            }
+        }
+        var table = new PlacementTable(rows, cols, cats, pieces);
+        var placements = new int[pieces.size()];
+        for (int i = 0; i < placements.length; i++) {
+            placements[i] = table.placementOf(i, pieces.get(i));
+            if (placements[i] < 0) {
+                throw new IllegalArgumentException(String.format("Piece %d at %d,%d does not fit on the %dx%d board.",
+                        pieces.get(i).id(), pieces.get(i).row(), pieces.get(i).col(), rows, cols));
+            }
+        }
+        return new Board(movesMade, table, placements, table.occupancyWords(placements), table.hash(placements));
+    }
+
+    /**
+     * Board of the puzzle of the table with every piece at the given placement, sharing the table, so many boards of
+     * one puzzle need only one table. The placements must not overlap.
+     */
+    static Board of(PlacementTable table, int[] placements) {
+        return new Board(0, table, placements.clone(), table.occupancyWords(placements), table.hash(placements));
+    }
+
+    /**
+     * Board of the given size with the pieces where they are, for puzzles that are built rather than parsed. Piece
+     * ids must be unique; only ids below the number of letters in the text format can be printed.
+     */
+    public static Board of(int rows, int cols, List<Piece> pieces, List<Cat> cats) {
+        var ids = new HashSet<Integer>();
+        for (var piece : pieces) {
+            if (!ids.add(piece.id())) {
+                throw new IllegalArgumentException(String.format("Piece id %d is used more than once.", piece.id()));
+            }
+        }
+        return of(0, rows, cols, pieces, cats);
+    }
+
+    /**
+     * Parses a board with a letter per piece, upper case for its boxes. The letters are numbered as piece ids, so
+     * the same puzzle always gets the same ids.
+     */
     public static Board from(List<String> stringRepresentation) {
+        if (stringRepresentation.isEmpty()) {
+            throw new IllegalArgumentException("Board has no rows.");
+        }
+        int cols = stringRepresentation.getFirst().length();
+        for (int row = 1; row < stringRepresentation.size(); row++) {
+            if (stringRepresentation.get(row).length() != cols) {
+                throw new IllegalArgumentException(String.format("Row %d has %d cells, but the first row has %d.",
+                        row, stringRepresentation.get(row).length(), cols));
+            }
+        }
         var cats = new ArrayList<Cat>();
-        var pieces = new HashMap<Character, PieceBuilder>();
+        var pieces = new TreeMap<Integer, PieceBuilder>();
 
         for (int row = 0; row < stringRepresentation.size(); row++) {
             var rowEntry = stringRepresentation.get(row);
@@ -34,10 +111,9 @@ public class Board {
                 var Char = rowEntry.charAt(col);
                 if (Char == CAT_SYMBOL) {
                     cats.add(new Cat(row, col));
-                } else if (Character.isLetter(Char)) {
+                } else if (pieceId(Char) >= 0) {
                     var type = Character.isUpperCase(Char) ? Square.Type.BOX : Square.Type.NORMAL;
-                    var key = Character.toLowerCase(Char);
-                    pieces.computeIfAbsent(key, x -> new PieceBuilder()).add(row, col, type);
+                    pieces.computeIfAbsent(pieceId(Char), PieceBuilder::new).add(row, col, type);
                 } else if (Char == AIR_SYMBOL) {
                     // do nothing
                 } else {
@@ -47,25 +123,50 @@ public class Board {
         }
         List<Piece> createdPieces = pieces.values().stream().map(PieceBuilder::build).toList();
 
-        return new Board(null, stringRepresentation.size(), stringRepresentation.getFirst().length(), createdPieces, cats);
+        return of(0, stringRepresentation.size(), cols, createdPieces, cats);
+    }
+
+    /**
+     * Id of the piece a letter of the text format stands for, or -1 if it is not such a letter.
+     */
+    static int pieceId(char letter) {
+        char lower = Character.toLowerCase(letter);
+        if (letter != lower && letter != Character.toUpperCase(lower)) {
+            return -1;
+        }
+        return PIECE_LETTERS.indexOf(lower);
     }
 
     public Map<Piece, List<Piece>> getMovesPerPiece() {
         var res = new HashMap<Piece, List<Piece>>();
-        for (var piece : pieces) {
-            for (var rotatedVariant : piece.getRotatedVariants()) {
-                for (int row = 0; row < rows; row++) {
-                    for (int col = 0; col < cols; col++) {
-                        var potentialMove = rotatedVariant.withLocation(row, col);
-                        if (potentialMove.equals(piece)) { // don't consider not moving the piece as a valid move
-                            continue;
-                        }
-                        if (canBePlaced(potentialMove)) {
-                            res.computeIfAbsent(piece, k -> new ArrayList<>()).add(potentialMove);
-                        }
-                    }
-                }
-            }
+        forEachMove((piece, placement) -> res.computeIfAbsent(table.piece(piece, placements[piece]), k -> new ArrayList<>())
+                .add(table.piece(piece, placement)));
+        return res;
+    }
+
+    /**
+     * Calls the consumer with the piece index and target placement of every legal move, without allocating pieces.
+     */
+    void forEachMove(PlacementTable.MoveConsumer consumer) {
+        moveSet().forEach(placements, consumer);
+    }
+
+    /**
+     * Like {@link #forEachMove(PlacementTable.MoveConsumer)}, but skips moves that look the same as another one.
+     */
+    void forEachDistinctMove(PlacementTable.MoveConsumer consumer) {
+        moveSet().forEachDistinct(placements, consumer);
+    }
+
+    MoveSet moveSet() {
+        var res = moves;
+        if (res == null) {
+            var parent = parentMoves;
+            res = parent == null
+                    ? MoveSet.of(table, placements, occupied)
+                    : parent.after(movedPiece, movedFrom, placements[movedPiece], placements, occupied);
+            moves = res;
+            parentMoves = null;
         }
         return res;
     }
@@ -75,119 +176,215 @@ public class Board {
             throw new IllegalArgumentException(String.format("Placing piece '%s' is considered an illegal move!", piece));
         }
 
-        var newPieces = new ArrayList<>(pieces);
-        newPieces.removeIf(p -> p.id() == piece.id());
-        newPieces.add(piece);
+        var index = table.indexOf(piece.id());
+        if (index < 0) {
+            var newPieces = pieces();
+            newPieces.add(piece);
+            return of(movesMade + 1, rows(), cols(), newPieces, table.cats());
+        }
+        return makeMove(index, table.placementOf(index, piece));
+    }
 
-        return new Board(this, rows, cols, newPieces, cats);
+    public Board makeMove(Move move) {
+        var index = table.indexOf(move.pieceId());
+        var placement = index < 0 ? -1 : table.placementOf(index, move.rotation(), move.row(), move.column());
+        if (placement < 0) {
+            throw new IllegalArgumentException(String.format("Move '%s' does not match a piece on this board!", move));
+        }
+        return makeMove(table.piece(index, placement));
+    }
+
+    /**
+     * Moves the piece at the given index to one of its placements, which must be a legal move.
+     */
+    Board makeMove(int piece, int placement) {
+        var newPlacements = placements.clone();
+        newPlacements[piece] = placement;
+        var newOccupied = occupied.clone();
+        table.vacate(newOccupied, piece, placements[piece]);
+        table.occupy(newOccupied, piece, placement);
+        var res = new Board(movesMade + 1, table, newPlacements, newOccupied, hashMove(piece, placement));
+        res.parentMoves = moves;
+        res.movedPiece = piece;
+        res.movedFrom = placements[piece];
+        return res;
     }
 
     public Optional<Piece> getPieceAt(int row, int col) {
-        return pieces.stream().filter(p -> p.getSquarePiece(row, col).isPresent()).findFirst();
+        int index = pieceIndexAt(row, col);
+        return index < 0 ? Optional.empty() : Optional.of(table.piece(index, placements[index]));
     }
 
     public int getMovesMade() {
-        if (previousState == null) {
-            return 0;
-        }
-        return 1 + previousState.getMovesMade();
+        return movesMade;
+    }
+
+    /**
+     * Exact key of this position: the placement index of every piece, packed by the {@link PlacementTable}.
+     * Two boards of the same puzzle share a key only if all pieces are placed identically. Only for puzzles whose
+     * keys fit in 64 bits; {@link #encodeWide()} covers every puzzle.
+     *
+     * @throws IllegalStateException if the key of the puzzle needs more than 64 bits
+     */
+    public long encode() {
+        return table.encode(placements);
+    }
+
+    /**
+     * Exact key of this position in {@link PlacementTable#keyWords()} words, for any puzzle. The key of a puzzle
+     * whose keys fit in 64 bits is the single word {@link #encode()}.
+     */
+    public long[] encodeWide() {
+        var res = new long[table.keyWords()];
+        table.encode(placements, res, 0);
+        return res;
+    }
+
+    /**
+     * Key of the board {@link #makeMove(int, int)} would return, without creating it.
+     */
+    long encodeMove(int piece, int placement) {
+        return table.withPlacement(encode(), piece, placement);
     }
 
-    public int encode() {
-        return this.toString().hashCode();
+    /**
+     * Zobrist hash of the position. Positions that look the same, up to rotations of symmetric pieces and swaps of
+     * identical pieces, share their hash; different positions collide with a chance of about one in 2^64.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * The hash after moving the piece to the placement, without making the move.
+     */
+    long hashMove(int piece, int placement) {
+        return hash ^ table.zobrist(piece, placements[piece]) ^ table.zobrist(piece, placement);
     }
 
     public int rows() {
-        return rows;
+        return table.rows();
     }
 
     public int cols() {
-        return cols;
+        return table.cols();
     }
 
     public List<Piece> pieces() {
-        return new ArrayList<>(pieces);
+        var res = new ArrayList<Piece>(placements.length);
+        for (int i = 0; i < placements.length; i++) {
+            res.add(table.piece(i, placements[i]));
+        }
+        return res;
     }
 
     public List<Cat> cats() {
-        return new ArrayList<>(cats);
+        return new ArrayList<>(table.cats());
     }
 
     public boolean isCat(int row, int col) {
-        return cats.stream().anyMatch(cat -> cat.row() == row && cat.column() == col);
+        return !isOutOfBounds(row, col) && table.isCat(table.cell(row, col));
     }
 
     public boolean isFinished() {
-        return cats.stream().map(cat -> getSquareAt(cat.row(), cat.column())).allMatch(Optional::isPresent);
+        return table.isFinished(occupied);
     }
 
-    boolean canBePlaced(Piece piece) {
-        for (Square square : piece.getSquares()) {
-            var absoluteRow = piece.row() + square.relativeRow();
-            var absoluteColumn = piece.col() + square.relativeColumn();
+    PlacementTable placementTable() {
+        return table;
+    }
 
-            if (isOutOfBounds(absoluteRow, absoluteColumn)) {
-                return false;
-            }
-            var existingSquare = getSquareAt(absoluteRow, absoluteColumn);
-            if (existingSquare.isPresent() && existingSquare.get().pieceId() != square.pieceId()) {
-                return false;
-            }
-            if (isCat(absoluteRow, absoluteColumn) && square.type() != Square.Type.BOX) {
-                return false;
+    int[] placements() {
+        return placements.clone();
+    }
+
+    /**
+     * Cell set of all covered cells, see {@link PlacementTable}.
+     */
+    long[] occupied() {
+        return occupied.clone();
+    }
+
+    boolean canBePlaced(Piece piece) {
+        var index = table.indexOf(piece.id());
+        if (index < 0) {
+            for (var square : piece.getSquares()) {
+                int row = piece.row() + square.relativeRow();
+                int col = piece.col() + square.relativeColumn();
+                if (isOutOfBounds(row, col) || (occupied[table.cell(row, col) >>> 6] & 1L << table.cell(row, col)) != 0
+                        || (square.type() == Square.Type.NORMAL && isCat(row, col))) {
+                    return false;
+                }
             }
+            return true;
         }
-        return true;
+        var placement = table.placementOf(index, piece);
+        if (placement < 0 || !table.isCatSafe(index, placement)) {
+            return false;
+        }
+        var others = occupied.clone();
+        table.vacate(others, index, placements[index]);
+        return table.fits(index, placement, others);
     }
 
     private boolean isOutOfBounds(int row, int col) {
-        return row < 0 || row >= rows || col < 0 || col >= cols;
+        return row < 0 || row >= rows() || col < 0 || col >= cols();
+    }
+
+    private int pieceIndexAt(int row, int col) {
+        if (isOutOfBounds(row, col)) {
+            return -1;
+        }
+        return (grid()[table.cell(row, col)] & PIECE_BITS) - 1;
     }
 
-    private Optional<Square> getSquareAt(int row, int col) {
-        for (Piece p : pieces) {
-            var maybeSquare = p.getSquarePiece(row, col);
-            if (maybeSquare.isPresent()) {
-                return maybeSquare;
+    private int[] grid() {
+        var res = grid;
+        if (res == null) {
+            var cells = new int[rows() * cols()];
+            for (int i = 0; i < placements.length; i++) {
+                int value = i + 1;
+                table.forEachSquare(i, placements[i], (cell, box) -> cells[cell] = value | (box ? BOX_FLAG : 0));
             }
+            for (var cat : table.cats()) {
+                cells[table.cell(cat.row(), cat.column())] |= CAT_FLAG;
+            }
+            res = cells;
+            grid = res;
         }
-        return Optional.empty();
+        return res;
     }
 
     @Override
     public String toString() {
-        String[][] board = new String[rows][cols];
-
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[0].length; c++) {
-                board[r][c] = String.valueOf(AIR_SYMBOL);
+        var grid = grid();
+        var res = new StringBuilder(rows() * (cols() + 1));
+        for (int r = 0; r < rows(); r++) {
+            if (r > 0) {
+                res.append('\n');
             }
-        }
-        for (Cat cat : cats) {
-            board[cat.row()][cat.column()] = String.valueOf(CAT_SYMBOL);
-        }
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[0].length; c++) {
-                var maybePiece = getPieceAt(r, c);
-                if (maybePiece.isPresent()) {
-                    var piece = maybePiece.get();
-                    String pieceString = convertIntToAscii(piece.id());
-                    if (piece.getSquarePiece(r, c).orElseThrow().type() == Square.Type.NORMAL) {
-                        pieceString = pieceString.toLowerCase();
-                    }
-                    board[r][c] = pieceString;
+            for (int c = 0; c < cols(); c++) {
+                int cell = grid[table.cell(r, c)];
+                int index = (cell & PIECE_BITS) - 1;
+                if (index >= 0) {
+                    char letter = pieceLetter(table.pieceId(index));
+                    res.append((cell & BOX_FLAG) != 0 ? Character.toUpperCase(letter) : letter);
+                } else {
+                    res.append((cell & CAT_FLAG) != 0 ? CAT_SYMBOL : AIR_SYMBOL);
                 }
             }
         }
-
-        return String.join("\n", Arrays.stream(board).map(col -> String.join("", col)).toList());
+        return res.toString();
     }
 
-    private String convertIntToAscii(int i) {
-        if (!(i > -1 && i < 26)) {
-            throw new IllegalArgumentException(String.format("Encoding '%d' cannot be converted to ascii character", i));
+    /**
+     * Lower case letter of the piece id in the text format.
+     */
+    static char pieceLetter(int i) {
+        if (!(i > -1 && i < PIECE_LETTERS.length())) {
+            throw new IllegalArgumentException(String.format("Encoding '%d' cannot be converted to a letter", i));
         }
-        return String.valueOf((char) (i + 65));
+        return PIECE_LETTERS.charAt(i);
     }
 
 }
@@ -0,0 +1,13 @@
+import java.time.Duration;
+
+/**
+ * Work done on one depth of a breadth-first search. The frontier is the number of states at this depth, the visited
+ * size counts all distinct states seen once the depth is done, including those discovered for the next depth.
+ */
+public record DepthStats(int depth, long frontierSize, long nodesExpanded, long movesGenerated, long duplicatesSkipped,
+                         long visitedSize, Duration wallTime) {
+
+    public double movesPerNode() {
+        return nodesExpanded == 0 ? 0 : (double) movesGenerated / nodesExpanded;
+    }
+}
@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only log of cached solutions in a memory-mapped file. The header holds the end of the last complete
+ * record, so a record only counts once it is fully written. Opening the file scans the log once to index the
+ * offset of every puzzle; lookups then read straight from the mapping.
+ * <p>
+ * Layout: header {@code int magic, int version, long end}, then per record {@code short keyLength, key bytes,
+ * int length (-1 if unsolvable), int[length] moves}, the moves holding the fields of {@link SolutionCache.Entry}.
+ * A mapping is limited to 2 GB.
+ */
+class DiskSolutionStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x43415453; // "CATS"
+    private static final int VERSION = 2;
+    private static final int END_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int INITIAL_SIZE = 1 << 20;
+    private static final int UNSOLVABLE = -1;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> offsets = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int end;
+
+    DiskSolutionStore(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        map(Math.max(INITIAL_SIZE, channel.size()));
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            setEnd(HEADER_SIZE);
+        } else {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException(String.format("File '%s' is not a solution cache of version %d.", file, VERSION));
+            }
+            end = (int) buffer.getLong(END_OFFSET);
+            index();
+        }
+    }
+
+    SolutionCache.Entry get(String key) {
+        var offset = offsets.get(key);
+        if (offset == null) {
+            return null;
+        }
+        int position = offset + Short.BYTES + buffer.getShort(offset);
+        int length = buffer.getInt(position);
+        if (length == UNSOLVABLE) {
+            return new SolutionCache.Entry(null);
+        }
+        var moves = new int[length];
+        for (int i = 0; i < length; i++) {
+            moves[i] = buffer.getInt(position + Integer.BYTES * (i + 1));
+        }
+        return new SolutionCache.Entry(moves);
+    }
+
+    void put(String key, SolutionCache.Entry entry) throws IOException {
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Puzzle encoding of %d bytes is too long to cache.", keyBytes.length));
+        }
+        int length = entry.moves() == null ? 0 : entry.moves().length;
+        int size = Short.BYTES + keyBytes.length + Integer.BYTES * (length + 1);
+        if ((long) end + size > buffer.capacity()) {
+            map(Math.max((long) buffer.capacity() * 2, (long) end + size));
+        }
+
+        int position = end;
+        buffer.putShort(position, (short) keyBytes.length);
+        buffer.put(position + Short.BYTES, keyBytes);
+        position += Short.BYTES + keyBytes.length;
+        buffer.putInt(position, entry.moves() == null ? UNSOLVABLE : length);
+        for (int i = 0; i < length; i++) {
+            buffer.putInt(position + Integer.BYTES * (i + 1), entry.moves()[i]);
+        }
+        offsets.put(key, end);
+        setEnd(end + size);
+    }
+
+    private void index() {
+        int position = HEADER_SIZE;
+        while (position < end) {
+            int keyLength = buffer.getShort(position);
+            var keyBytes = new byte[keyLength];
+            buffer.get(position + Short.BYTES, keyBytes);
+            offsets.put(new String(keyBytes, StandardCharsets.UTF_8), position);
+            int length = buffer.getInt(position + Short.BYTES + keyLength);
+            position += Short.BYTES + keyLength + Integer.BYTES * (Math.max(0, length) + 1);
+        }
+    }
+
+    private void map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Solution cache file cannot grow beyond 2 GB.");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private void setEnd(int end) {
+        this.end = end;
+        buffer.putLong(END_OFFSET, end);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
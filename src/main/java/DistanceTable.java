@@ -0,0 +1,365 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Optimal number of moves left for every position of a puzzle that can still be finished. It is built once by a
+ * breadth-first search backwards from all finished positions, which are enumerated as in {@link BidirectionalSolver};
+ * every move can be undone, so searching backwards uses the same moves. Afterwards the distance and the best move of
+ * any position with the same pieces and cats are a lookup instead of a solve.
+ * <p>
+ * Positions that look the same share their entry. The table has an entry for every position the pieces can take,
+ * finished or not: the canonical keys of all of them are enumerated once and numbered by a {@link PerfectHash}, so
+ * no key is kept and a lookup takes constant time. The entry holds the distance, packed at the fewest bits of 4, 8,
+ * 16 or 32 that also hold a marker for positions that cannot be finished, so most puzzles take a nibble per
+ * position plus about 3.5 bits of the hash.
+ * <p>
+ * Layout when saved: {@code int magic, int version, long fingerprint, int count, int positions, int distanceBits},
+ * then the {@link PerfectHash} as written by it and the packed distances as {@code long[]}, exactly as held in
+ * memory.
+ */
+public final class DistanceTable {
+
+    public static final int UNSOLVABLE = -1;
+
+    private static final int MAGIC = 0x44495354; // "DIST"
+    private static final int VERSION = 3;
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final PlacementTable table;
+    // index of the canonical key of every position the pieces can take
+    private final PerfectHash index;
+    // distance of the position of each index, distanceBits each, packed from the low bits of every word up
+    private final long[] distances;
+    private final int distanceBits;
+    private final int size;
+    private final int maxDistance;
+
+    private DistanceTable(PlacementTable table, PerfectHash index, long[] distances, int distanceBits, int size,
+                          int maxDistance) {
+        this.table = table;
+        this.index = index;
+        this.distances = distances;
+        this.distanceBits = distanceBits;
+        this.size = size;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Table of the positions, with the distances in the map and all others marked as not finishable.
+     */
+    private static DistanceTable of(PlacementTable table, long[] positions, LongIntMap distances, int maxDistance) {
+        var index = PerfectHash.of(positions);
+        int bits = distanceBits(maxDistance);
+        long unsolvable = (1L << bits) - 1;
+        var packed = new long[packedWords(positions.length, bits)];
+        int size = 0;
+        for (long key : positions) {
+            int distance = distances.get(key);
+            if (distance != LongIntMap.MISSING) {
+                size++;
+            }
+            long bit = (long) index.indexOf(key) * bits;
+            packed[(int) (bit >>> 6)] |= (distance == LongIntMap.MISSING ? unsolvable : distance) << bit;
+        }
+        if (size != distances.size()) {
+            throw new IllegalStateException(String.format("%d of the %d positions searched were not enumerated.",
+                    distances.size() - size, distances.size()));
+        }
+        return new DistanceTable(table, index, packed, bits, size, maxDistance);
+    }
+
+    /**
+     * Fewest bits of 4, 8, 16 or 32 that hold every distance and, with all of them set, the marker of positions
+     * that cannot be finished.
+     */
+    private static int distanceBits(int maxDistance) {
+        int bits = 4;
+        while (bits < Integer.SIZE && maxDistance >= (1L << bits) - 1) {
+            bits *= 2;
+        }
+        return bits;
+    }
+
+    private static int packedWords(int count, int bits) {
+        return Math.toIntExact(((long) count * bits + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Searches the puzzle of the board backwards from every finished position. Only for puzzles whose positions fit
+     * in a single key.
+     *
+     * @throws IllegalArgumentException if the puzzle is not {@linkplain PlacementTable#isCompact() compact}
+     * @throws CancellationException    if the calling thread is interrupted during the search
+     */
+    public static DistanceTable build(Board board) {
+        if (!board.placementTable().isCompact()) {
+            throw new IllegalArgumentException(String.format("Puzzle of %dx%d with %d pieces does not fit in the keys of a distance table.",
+                    board.rows(), board.cols(), board.placementTable().pieceCount()));
+        }
+        return build(board, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #build(Board)}, but gives up and returns null once the pieces can take more {@linkplain #positions()
+     * positions} than the limit, or if the puzzle is not compact.
+     */
+    static DistanceTable build(Board board, int maxPositions) {
+        var table = board.placementTable();
+        var positions = table.isCompact() ? positions(table, maxPositions) : null;
+        if (positions == null) {
+            return null;
+        }
+        var placements = new int[table.pieceCount()];
+        var distances = new LongIntMap(DEFAULT_EXPECTED_STATES);
+
+        var layer = new long[16];
+        int layerSize = 0;
+        var goals = BidirectionalSolver.goals(board, maxPositions);
+        if (goals == null) {
+            return null;
+        }
+        for (long goal : goals) {
+            long key = table.canonicalKey(goal);
+            if (distances.putIfAbsent(key, 0) == LongIntMap.MISSING) {
+                layer = add(layer, layerSize++, key);
+            }
+        }
+
+        int depth = 0;
+        while (layerSize > 0) {
+            var next = new long[][]{new long[16]};
+            int[] nextSize = {0};
+            int childDepth = depth + 1;
+            for (int i = 0; i < layerSize; i++) {
+                if (i % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Building the distance table was interrupted.");
+                }
+                long key = layer[i];
+                table.decode(key, placements);
+                table.forEachDistinctMove(placements, table.occupancy(placements), (piece, placement) -> {
+                    long child = table.canonicalKey(table.withPlacement(key, piece, placement));
+                    if (distances.putIfAbsent(child, childDepth) == LongIntMap.MISSING) {
+                        next[0] = add(next[0], nextSize[0]++, child);
+                    }
+                });
+                if (distances.size() > maxPositions) {
+                    return null;
+                }
+            }
+            layer = next[0];
+            layerSize = nextSize[0];
+            if (layerSize > 0) {
+                depth = childDepth;
+            }
+        }
+        return of(table, positions, distances, depth);
+    }
+
+    /**
+     * Canonical keys of every position the pieces can take: each at a cat-safe placement clear of the others. Null
+     * if there are more than the limit.
+     */
+    private static long[] positions(PlacementTable table, int maxPositions) {
+        var res = new long[][]{new long[16]};
+        int[] count = {0};
+        boolean complete = positions(table, 0, new int[table.pieceCount()], 0, maxPositions, res, count);
+        return complete ? Arrays.copyOf(res[0], count[0]) : null;
+    }
+
+    private static boolean positions(PlacementTable table, int piece, int[] placements, long occupied,
+                                     int maxPositions, long[][] res, int[] count) {
+        if (piece == placements.length) {
+            long key = table.encode(placements);
+            // positions that look the same are enumerated once each, only the canonical one is kept
+            if (table.canonicalKey(key) == key) {
+                if (count[0] == maxPositions) {
+                    return false;
+                }
+                res[0] = add(res[0], count[0]++, key);
+            }
+            return true;
+        }
+        if (piece == placements.length - 1 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Building the distance table was interrupted.");
+        }
+        for (int placement = 0; placement < table.placementCount(piece); placement++) {
+            if (table.isCatSafe(piece, placement) && table.canonicalPlacement(piece, placement) == placement
+                    && (table.mask(piece, placement) & occupied) == 0) {
+                placements[piece] = placement;
+                if (!positions(table, piece + 1, placements, occupied | table.mask(piece, placement), maxPositions, res, count)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long[] add(long[] keys, int size, long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        return keys;
+    }
+
+    /**
+     * Reads a table saved by {@link #save(Path)} for the puzzle of the board.
+     *
+     * @throws IOException if the file is not a distance table of this puzzle
+     */
+    public static DistanceTable load(Board board, Path file) throws IOException {
+        var table = board.placementTable();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(String.format("File '%s' is not a distance table of version %d.", file, VERSION));
+            }
+            if (in.readLong() != table.fingerprint()) {
+                throw new IOException(String.format("File '%s' holds the distances of another puzzle.", file));
+            }
+            int count = in.readInt();
+            int positions = in.readInt();
+            int bits = in.readInt();
+            if (count < 0 || positions < count || bits < 4 || bits > Integer.SIZE || Integer.bitCount(bits) != 1) {
+                throw new IOException(String.format("File '%s' holds %d distances of %d positions at %d bits.",
+                        file, count, positions, bits));
+            }
+            var index = PerfectHash.read(in);
+            if (index.size() != positions) {
+                throw new IOException(String.format("File '%s' numbers %d positions instead of %d.", file, index.size(), positions));
+            }
+            var distances = new long[packedWords(positions, bits)];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = in.readLong();
+            }
+            int unsolvable = (int) ((1L << bits) - 1);
+            int maxDistance = 0;
+            for (int i = 0; i < positions; i++) {
+                int distance = distanceAt(distances, bits, i);
+                if (distance != unsolvable) {
+                    maxDistance = Math.max(maxDistance, distance);
+                }
+            }
+            return new DistanceTable(table, index, distances, bits, count, maxDistance);
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(table.fingerprint());
+            out.writeInt(size);
+            out.writeInt(index.size());
+            out.writeInt(distanceBits);
+            index.write(out);
+            for (long word : distances) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Fewest moves that finish the board, or {@link #UNSOLVABLE}.
+     */
+    public int distance(Board board) {
+        long key = key(board);
+        var placements = board.placements();
+        for (int piece = 0; piece < placements.length; piece++) {
+            // a piece with other than a box on a cat is not in the table
+            if (!table.isCatSafe(piece, placements[piece])) {
+                return UNSOLVABLE;
+            }
+        }
+        return distance(key);
+    }
+
+    /**
+     * A move that brings the board one move closer to finished, or null if it is finished or cannot be finished.
+     */
+    public Move bestMove(Board board) {
+        int distance = distance(board);
+        if (distance <= 0) {
+            return null;
+        }
+        long key = board.encode();
+        Move[] best = {null};
+        board.forEachDistinctMove((piece, placement) -> {
+            if (best[0] == null && distance(table.canonicalKey(table.withPlacement(key, piece, placement))) == distance - 1) {
+                var moved = board.placementTable().piece(piece, placement);
+                best[0] = new Move(moved.id(), moved.rotation(), moved.row(), moved.col());
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Optimal solution of the board made of best moves, or null if it cannot be finished.
+     */
+    public Solution findSolution(Board board) {
+        if (distance(board) == UNSOLVABLE) {
+            return null;
+        }
+        var moves = new ArrayList<Move>();
+        var current = board;
+        for (var move = bestMove(current); move != null; move = bestMove(current)) {
+            moves.add(move);
+            current = current.makeMove(move);
+        }
+        return new Solution(board, moves);
+    }
+
+    /**
+     * Number of positions that can be finished, counting positions that look the same once.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of positions the pieces can take, finished or not, counting positions that look the same once. Each has
+     * an entry.
+     */
+    public int positions() {
+        return index.size();
+    }
+
+    /**
+     * Most moves any position of the puzzle needs.
+     */
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    private long key(Board board) {
+        if (board.placementTable().fingerprint() != table.fingerprint()) {
+            throw new IllegalArgumentException("Board is not a position of the puzzle of this distance table.");
+        }
+        return table.canonicalKey(board.encode());
+    }
+
+    /**
+     * Distance of a position the pieces can take; any other key gets a meaningless answer, see {@link PerfectHash}.
+     */
+    private int distance(long canonicalKey) {
+        int i = index.indexOf(canonicalKey);
+        if (i < 0) {
+            return UNSOLVABLE;
+        }
+        int distance = distanceAt(distances, distanceBits, i);
+        return distance == (int) ((1L << distanceBits) - 1) ? UNSOLVABLE : distance;
+    }
+
+    private static int distanceAt(long[] distances, int bits, int index) {
+        long bit = (long) index * bits;
+        return (int) (distances[(int) (bit >>> 6)] >>> bit & (1L << bits) - 1);
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Knuth's Algorithm X on Dancing Links. Primary columns must be covered exactly once, secondary columns at most
+ * once. Columns are numbered with the primary ones first.
+ */
+public final class ExactCover {
+
+    private static final int ROOT = 0;
+
+    private final int primaryColumns;
+    private final int columns;
+    // Nodes 0 up to and including columns are the root and the column headers, the rest are the cells of rows.
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column;
+    private int[] row;
+    private final int[] size;
+    private int nodes;
+    private int rows;
+
+    public ExactCover(int primaryColumns, int secondaryColumns) {
+        this.primaryColumns = primaryColumns;
+        this.columns = primaryColumns + secondaryColumns;
+        int capacity = Math.max(64, 4 * (columns + 1));
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.up = new int[capacity];
+        this.down = new int[capacity];
+        this.column = new int[capacity];
+        this.row = new int[capacity];
+        this.size = new int[columns + 1];
+
+        for (int c = 0; c <= columns; c++) {
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            // secondary columns are left out of the header list, so they never have to be covered
+            left[c] = c == ROOT ? primaryColumns : c <= primaryColumns ? c - 1 : c;
+            right[c] = c == primaryColumns ? ROOT : c < primaryColumns ? c + 1 : c;
+        }
+        this.nodes = columns + 1;
+    }
+
+    /**
+     * Adds a row covering the given columns and returns its index.
+     */
+    public int addRow(int... rowColumns) {
+        int first = -1;
+        for (int c : rowColumns) {
+            if (c < 0 || c >= columns) {
+                throw new IllegalArgumentException(String.format("Column %d is not in [0, %d).", c, columns));
+            }
+            if (nodes == left.length) {
+                grow();
+            }
+            int header = c + 1;
+            int node = nodes++;
+            column[node] = header;
+            row[node] = rows;
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+            if (first < 0) {
+                first = node;
+                left[node] = node;
+                right[node] = node;
+            } else {
+                left[node] = left[first];
+                right[node] = first;
+                right[left[first]] = node;
+                left[first] = node;
+            }
+        }
+        return rows++;
+    }
+
+    /**
+     * Calls the visitor with the rows of every cover, until it returns false.
+     */
+    public void solve(Predicate<int[]> visitor) {
+        search(new int[primaryColumns], 0, visitor);
+    }
+
+    private boolean search(int[] chosen, int depth, Predicate<int[]> visitor) {
+        if (right[ROOT] == ROOT) {
+            return visitor.test(Arrays.copyOf(chosen, depth));
+        }
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        cover(best);
+        try {
+            for (int node = down[best]; node != best; node = down[node]) {
+                chosen[depth] = row[node];
+                for (int other = right[node]; other != node; other = right[other]) {
+                    cover(column[other]);
+                }
+                boolean proceed = search(chosen, depth + 1, visitor);
+                for (int other = left[node]; other != node; other = left[other]) {
+                    uncover(column[other]);
+                }
+                if (!proceed) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            uncover(best);
+        }
+    }
+
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    private void grow() {
+        int capacity = left.length * 2;
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        up = Arrays.copyOf(up, capacity);
+        down = Arrays.copyOf(down, capacity);
+        column = Arrays.copyOf(column, capacity);
+        row = Arrays.copyOf(row, capacity);
+    }
+}
@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Breadth-first solver that keeps its state on local disk instead of the heap, for state spaces larger than
+ * memory. Every depth is a file of sorted canonical keys. Expanding a depth fills a buffer of at most the heap budget
+ * with the keys of the children, which is sorted and written out as a run whenever it is full. The runs are then
+ * merged into the next depth, dropping duplicates and every key of the two depths before it. A move can always be
+ * undone, so a child is never further back than that.
+ * <p>
+ * No parents are stored: the solution is traced back from the goal by looking for a neighbour in each earlier
+ * depth. The files live in a temporary directory that is removed once the solve is done.
+ * <p>
+ * Depth files hold {@code long} keys, so puzzles whose positions do not fit in one are solved in memory by
+ * {@link Solver} instead.
+ */
+public class ExternalSolver {
+
+    private static final long DEFAULT_HEAP_BUDGET = 64L << 20;
+    private static final long MIN_HEAP_BUDGET = 1 << 10;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final Path directory;
+    private final int bufferKeys;
+
+    public ExternalSolver(Path directory) {
+        this(directory, DEFAULT_HEAP_BUDGET);
+    }
+
+    /**
+     * @param directory  where the temporary directory of each solve is created
+     * @param heapBudget bytes of heap used to buffer the children of a depth before they are spilled to disk
+     */
+    public ExternalSolver(Path directory, long heapBudget) {
+        if (heapBudget < MIN_HEAP_BUDGET) {
+            throw new IllegalArgumentException(String.format("Heap budget must be at least %d bytes, got %d.", MIN_HEAP_BUDGET, heapBudget));
+        }
+        this.directory = directory;
+        this.bufferKeys = (int) Math.min(Integer.MAX_VALUE - 8, heapBudget / Long.BYTES);
+    }
+
+    public Board solve(Board board) {
+        var solution = findSolution(board);
+        return solution == null ? null : solution.finalBoard();
+    }
+
+    /**
+     * @throws UncheckedIOException if the search files cannot be written
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public Solution findSolution(Board board) {
+        if (board.isFinished()) {
+            return new Solution(board, List.of());
+        }
+        if (!board.placementTable().isCompact()) {
+            return new Solver().findSolution(board);
+        }
+        try {
+            var work = Files.createTempDirectory(directory, "search-");
+            try {
+                return search(board, work);
+            } finally {
+                try (var files = Files.list(work)) {
+                    for (var file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(work);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Solution search(Board board, Path work) throws IOException {
+        var table = board.placementTable();
+        var placements = new int[table.pieceCount()];
+        var layers = new ArrayList<LayerFile>();
+        try (var writer = new LayerFile.Writer(work.resolve("depth-0"))) {
+            writer.add(table.canonicalKey(board.encode()));
+            layers.add(writer.finish());
+        }
+
+        var spiller = new Spiller(bufferKeys, work);
+        for (int depth = 0; ; depth++) {
+            var layer = layers.get(depth);
+            long[] goal = {0};
+            boolean[] found = {false};
+            for (long i = 0; i < layer.count() && !found[0]; i++) {
+                if (i % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Solve was interrupted.");
+                }
+                long key = layer.get(i);
+                table.decode(key, placements);
+                long occupied = table.occupancy(placements);
+                table.forEachDistinctMove(placements, occupied, (piece, placement) -> {
+                    long child = table.withPlacement(key, piece, placement);
+                    long childOccupied = occupied & ~table.mask(piece, placements[piece]) | table.mask(piece, placement);
+                    if (!found[0] && table.isFinished(childOccupied)) {
+                        found[0] = true;
+                        goal[0] = child;
+                    }
+                    spiller.add(table.canonicalKey(child));
+                });
+            }
+            if (found[0]) {
+                return trace(board, layers, goal[0]);
+            }
+            var runs = spiller.finish();
+            var next = merge(runs, layer, depth == 0 ? null : layers.get(depth - 1),
+                    work.resolve("depth-" + (depth + 1)));
+            for (var run : runs) {
+                Files.delete(run.file());
+            }
+            if (next.count() == 0) {
+                return null;
+            }
+            layers.add(next);
+        }
+    }
+
+    /**
+     * Merges the sorted runs into the next depth, without duplicates or keys of the current and previous depth.
+     */
+    private static LayerFile merge(List<LayerFile> runs, LayerFile current, LayerFile previous, Path file) throws IOException {
+        var heads = new PriorityQueue<LayerFile.Cursor>(Comparator.comparingLong(LayerFile.Cursor::peek));
+        for (var run : runs) {
+            var cursor = run.cursor();
+            if (cursor.hasNext()) {
+                heads.add(cursor);
+            }
+        }
+        var inCurrent = current.cursor();
+        var inPrevious = previous == null ? null : previous.cursor();
+        try (var writer = new LayerFile.Writer(file)) {
+            boolean first = true;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                var head = heads.poll();
+                long key = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+                if (!first && key == last) {
+                    continue;
+                }
+                first = false;
+                last = key;
+                if (inCurrent.skipTo(key) || (inPrevious != null && inPrevious.skipTo(key))) {
+                    continue;
+                }
+                writer.add(key);
+            }
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Path from the start to the goal, found by stepping back to a neighbour in each earlier depth.
+     */
+    private static Solution trace(Board board, List<LayerFile> layers, long goal) {
+        var table = board.placementTable();
+        var placements = new int[table.pieceCount()];
+        var chain = new long[layers.size() + 1];
+        chain[layers.size()] = goal;
+        for (int depth = layers.size() - 1; depth >= 0; depth--) {
+            long key = chain[depth + 1];
+            var layer = layers.get(depth);
+            boolean[] stepped = {false};
+            int at = depth;
+            table.decode(key, placements);
+            table.forEachDistinctMove(placements, table.occupancy(placements), (piece, placement) -> {
+                long neighbour = table.withPlacement(key, piece, placement);
+                if (!stepped[0] && layer.contains(table.canonicalKey(neighbour))) {
+                    stepped[0] = true;
+                    chain[at] = neighbour;
+                }
+            });
+            if (!stepped[0]) {
+                throw new IllegalStateException(String.format("No neighbour of the path at depth %d.", depth));
+            }
+        }
+        // the chain starts at a position that looks the same as the start
+        return Solution.fromPath(board, table.carryOver(board.encode(), chain));
+    }
+
+    /**
+     * Buffers the children of a depth, writing them out as a sorted run without duplicates whenever the buffer has
+     * grown to its limit.
+     */
+    private static final class Spiller {
+        private static final int INITIAL_KEYS = 1 << 12;
+
+        private final int limit;
+        private final Path work;
+        private long[] buffer;
+        private int size;
+        private List<LayerFile> runs = new ArrayList<>();
+        private int runCount;
+
+        private Spiller(int limit, Path work) {
+            this.limit = limit;
+            this.work = work;
+            this.buffer = new long[Math.min(limit, INITIAL_KEYS)];
+        }
+
+        private void add(long key) {
+            if (size == buffer.length) {
+                if (buffer.length < limit) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(limit, 2L * buffer.length));
+                } else {
+                    try {
+                        spill();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            buffer[size++] = key;
+        }
+
+        /**
+         * Spills what is left and returns the runs written since the last call.
+         */
+        private List<LayerFile> finish() throws IOException {
+            spill();
+            var res = runs;
+            runs = new ArrayList<>();
+            return res;
+        }
+
+        private void spill() throws IOException {
+            if (size == 0) {
+                return;
+            }
+            Arrays.sort(buffer, 0, size);
+            try (var writer = new LayerFile.Writer(work.resolve("run-" + runCount++))) {
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || buffer[i] != buffer[i - 1]) {
+                        writer.add(buffer[i]);
+                    }
+                }
+                runs.add(writer.finish());
+            }
+            size = 0;
+        }
+    }
+}
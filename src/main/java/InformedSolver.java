@@ -0,0 +1,550 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solver guided by the {@link CatCoverageHeuristic}. A* keeps every generated state in memory and expands the
+ * fewest states; IDA* only keeps the current path plus a fixed-size transposition table, at the cost of
+ * re-expanding states once per cost threshold. Both return a board with the minimal number of moves, and both treat
+ * positions that look the same as one state.
+ * <p>
+ * The heuristic is admissible but not consistent, so a state can be reached again with fewer moves after it was
+ * expanded. A* then expands it again, and IDA* only prunes states already reached with at most as many moves.
+ */
+public class InformedSolver {
+
+    public enum Strategy {
+        A_STAR,
+        IDA_STAR
+    }
+
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int DEFAULT_TRANSPOSITION_ENTRIES = 1 << 20;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final Strategy strategy;
+    private final int transpositionEntries;
+
+    public InformedSolver() {
+        this(Strategy.A_STAR);
+    }
+
+    public InformedSolver(Strategy strategy) {
+        this(strategy, DEFAULT_TRANSPOSITION_ENTRIES);
+    }
+
+    /**
+     * @param transpositionEntries number of states IDA* remembers per iteration, rounded up to a power of two
+     */
+    public InformedSolver(Strategy strategy, int transpositionEntries) {
+        if (transpositionEntries < 1) {
+            throw new IllegalArgumentException(String.format("Transposition table needs at least one entry, got %d.", transpositionEntries));
+        }
+        this.strategy = strategy;
+        this.transpositionEntries = transpositionEntries;
+    }
+
+    public Board solve(Board board) {
+        var solution = findSolution(board);
+        return solution == null ? null : solution.finalBoard();
+    }
+
+    /**
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public Solution findSolution(Board board) {
+        var res = search(board, SearchBudget.UNLIMITED);
+        if (res.outcome() == Solver.Outcome.CANCELLED) {
+            throw new CancellationException("Solve was interrupted.");
+        }
+        return res.solution();
+    }
+
+    /**
+     * Like {@link Solver#search(Board, SolverListener, SearchBudget)}, stops once the budget is spent, the budget's
+     * cancellation reports true or the thread is interrupted, returning what was found so far. The interrupt is left
+     * set. The stats hold one entry per cost bound searched. IDA* stores no states beyond its transposition table, so
+     * it ignores the state limit.
+     * <p>
+     * IDA* can only tell that a puzzle is unsolvable once an iteration reaches no new state and its transposition
+     * table lost none; on puzzles with more states than the table, only the budget stops it.
+     */
+    public Solver.SearchResult search(Board board, SearchBudget budget) {
+        var heuristic = new CatCoverageHeuristic(board.placementTable());
+        if (heuristic.estimate(board.occupied()) == CatCoverageHeuristic.UNREACHABLE) {
+            var none = new Solution(board, List.of());
+            return new Solver.SearchResult(null, new SolverStats(List.of()), Solver.Outcome.UNSOLVABLE, 0, none);
+        }
+        return switch (strategy) {
+            case A_STAR -> new AStarSearch(board, heuristic, budget).run();
+            case IDA_STAR -> new IdaSearch(board, heuristic, budget, new TranspositionTable(transpositionEntries)).run();
+        };
+    }
+
+    /**
+     * Reason to stop at this node, checking the clock and cancellation only every so many nodes, or null.
+     */
+    private static Solver.Outcome stopCheck(SearchBudget budget, long start, long nodes) {
+        if (nodes % INTERRUPT_CHECK_INTERVAL != 0) {
+            return null;
+        }
+        if (Thread.currentThread().isInterrupted() || budget.cancelled().getAsBoolean()) {
+            return Solver.Outcome.CANCELLED;
+        }
+        if (System.nanoTime() - start >= budget.maxNanos()) {
+            return Solver.Outcome.TIME_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * A* over packed keys: the store holds every generated state with the state it was reached from, the open list
+     * only their indices. A state reached with fewer moves than before is stored again and the map moves on to the
+     * new entry, so older entries of the state are skipped when they come up.
+     */
+    private static final class AStarSearch {
+
+        private final Board board;
+        private final PlacementTable table;
+        private final CatCoverageHeuristic heuristic;
+        private final SearchBudget budget;
+        private final StateStore store;
+        private final OpenList open = new OpenList();
+        // Zobrist hash of every generated state to the index of its entry with the fewest moves
+        private final LongIntMap best = new LongIntMap(DEFAULT_EXPECTED_STATES);
+        private final List<DepthStats> bounds = new ArrayList<>();
+        private final long start = System.nanoTime();
+        private long boundStart = start;
+        private long expanded;
+        private long nodesExpanded;
+        private long movesGenerated;
+        private long duplicatesSkipped;
+
+        private AStarSearch(Board board, CatCoverageHeuristic heuristic, SearchBudget budget) {
+            this.board = board;
+            this.table = board.placementTable();
+            this.heuristic = heuristic;
+            this.budget = budget;
+            this.store = new StateStore(DEFAULT_EXPECTED_STATES, table.keyWords());
+        }
+
+        private Solver.SearchResult run() {
+            var key = new long[table.keyWords()];
+            table.encode(board.placements(), key, 0);
+            store.add(key, StateStore.NO_PARENT);
+            open.add(0, heuristic.estimate(board.occupied()), board.hash());
+            best.put(board.hash(), 0);
+
+            var placements = new int[table.pieceCount()];
+            var outcome = Solver.Outcome.UNSOLVABLE;
+            int bound = open.cost(0);
+            int closest = 0;
+            int closestUncovered = Integer.MAX_VALUE;
+            long polled = 0;
+            while (!open.isEmpty()) {
+                var stop = stopCheck(budget, start, polled++);
+                if (stop != null) {
+                    outcome = stop;
+                    break;
+                }
+                int index = open.poll();
+                long hash = open.hash(index);
+                if (best.get(hash) != index) {
+                    duplicatesSkipped++;
+                    continue;
+                }
+                if (open.cost(index) > bound) {
+                    completeBound(bound);
+                    bound = open.cost(index);
+                }
+                store.key(index, key);
+                table.decode(key, 0, placements);
+                var occupied = table.occupancyWords(placements);
+                int uncovered = table.uncoveredCats(occupied);
+                if (uncovered < closestUncovered) {
+                    closest = index;
+                    closestUncovered = uncovered;
+                }
+                if (uncovered == 0) {
+                    outcome = Solver.Outcome.SOLVED;
+                    break;
+                }
+                if (expanded >= budget.maxNodes()) {
+                    outcome = Solver.Outcome.NODE_LIMIT;
+                    break;
+                }
+                if (store.size() >= budget.maxStates()) {
+                    outcome = Solver.Outcome.STATE_LIMIT;
+                    break;
+                }
+                expanded++;
+                nodesExpanded++;
+                expand(index, hash, key, placements, occupied);
+            }
+            completeBound(bound);
+
+            var closestPath = Solution.fromPath(board, store.path(closest));
+            var solution = outcome == Solver.Outcome.SOLVED ? closestPath : null;
+            int lowerBound = solution != null ? solution.movesMade() : bound;
+            return new Solver.SearchResult(solution, new SolverStats(bounds), outcome, lowerBound, closestPath);
+        }
+
+        private void expand(int index, long hash, long[] key, int[] placements, long[] occupied) {
+            int moves = open.moves(index) + 1;
+            MoveSet.of(table, placements, occupied).forEachDistinct(placements, (piece, placement) -> {
+                movesGenerated++;
+                int from = placements[piece];
+                long child = hash ^ table.zobrist(piece, from) ^ table.zobrist(piece, placement);
+                int existing = best.get(child);
+                if (existing != LongIntMap.MISSING && open.moves(existing) <= moves) {
+                    duplicatesSkipped++;
+                    return;
+                }
+                table.vacate(occupied, piece, from);
+                table.occupy(occupied, piece, placement);
+                int estimate = heuristic.estimate(occupied);
+                table.vacate(occupied, piece, placement);
+                table.occupy(occupied, piece, from);
+
+                table.setPlacement(key, 0, piece, placement);
+                best.put(child, store.add(key, index));
+                table.setPlacement(key, 0, piece, from);
+                open.add(moves, moves + estimate, child);
+            });
+        }
+
+        private void completeBound(int bound) {
+            long now = System.nanoTime();
+            bounds.add(new DepthStats(bound, open.size(), nodesExpanded, movesGenerated, duplicatesSkipped, best.size(),
+                    Duration.ofNanos(now - boundStart)));
+            boundStart = now;
+            nodesExpanded = 0;
+            movesGenerated = 0;
+            duplicatesSkipped = 0;
+        }
+    }
+
+    /**
+     * Entries of the A* store by index, with the moves and the estimated total cost of each, and a binary heap of
+     * the indices still to expand. Among equal costs the deepest entry comes first, it is closest to a solution.
+     */
+    private static final class OpenList {
+        private int[] moves = new int[DEFAULT_EXPECTED_STATES];
+        private int[] costs = new int[DEFAULT_EXPECTED_STATES];
+        private long[] hashes = new long[DEFAULT_EXPECTED_STATES];
+        private int entries;
+        private int[] heap = new int[DEFAULT_EXPECTED_STATES];
+        private int size;
+
+        private void add(int movesMade, int cost, long hash) {
+            if (entries == moves.length) {
+                moves = Arrays.copyOf(moves, entries * 2);
+                costs = Arrays.copyOf(costs, entries * 2);
+                hashes = Arrays.copyOf(hashes, entries * 2);
+            }
+            moves[entries] = movesMade;
+            costs[entries] = cost;
+            hashes[entries] = hash;
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int at = size++;
+            for (int parent = (at - 1) >>> 1; at > 0 && before(entries, heap[parent]); parent = (at - 1) >>> 1) {
+                heap[at] = heap[parent];
+                at = parent;
+            }
+            heap[at] = entries++;
+        }
+
+        private int poll() {
+            int res = heap[0];
+            int last = heap[--size];
+            int at = 0;
+            for (int child = 1; child < size; child = 2 * at + 1) {
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[at] = heap[child];
+                at = child;
+            }
+            heap[at] = last;
+            return res;
+        }
+
+        private boolean before(int a, int b) {
+            return costs[a] != costs[b] ? costs[a] < costs[b] : moves[a] > moves[b];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int moves(int entry) {
+            return moves[entry];
+        }
+
+        private int cost(int entry) {
+            return costs[entry];
+        }
+
+        private long hash(int entry) {
+            return hashes[entry];
+        }
+    }
+
+    private static final class IdaSearch {
+
+        private final Board board;
+        private final CatCoverageHeuristic heuristic;
+        private final SearchBudget budget;
+        private final TranspositionTable transpositions;
+        private final long start = System.nanoTime();
+        private final List<DepthStats> bounds = new ArrayList<>();
+        private int threshold;
+        private int nextThreshold;
+        // states cut off by the threshold in this iteration that had not been reached yet, or null once there are
+        // more than the transposition table holds
+        private LongIntMap cut;
+        private Solver.Outcome outcome;
+        private long nodes;
+        private long expanded;
+        private long nodesExpanded;
+        private long movesGenerated;
+        private long duplicatesSkipped;
+        // piece and placement of every move on the current path
+        private int[] pathPieces = new int[16];
+        private int[] pathPlacements = new int[16];
+        private List<Move> closest = List.of();
+        private int closestUncovered = Integer.MAX_VALUE;
+
+        private IdaSearch(Board board, CatCoverageHeuristic heuristic, SearchBudget budget, TranspositionTable transpositions) {
+            this.board = board;
+            this.heuristic = heuristic;
+            this.budget = budget;
+            this.transpositions = transpositions;
+        }
+
+        private Solver.SearchResult run() {
+            threshold = heuristic.estimate(board.occupied());
+            var res = Solver.Outcome.UNSOLVABLE;
+            while (true) {
+                long iterationStart = System.nanoTime();
+                nextThreshold = CatCoverageHeuristic.UNREACHABLE;
+                cut = new LongIntMap(DEFAULT_EXPECTED_STATES);
+                nodesExpanded = 0;
+                movesGenerated = 0;
+                duplicatesSkipped = 0;
+                transpositions.clear();
+                boolean found = search(board, 0);
+                bounds.add(new DepthStats(threshold, 0, nodesExpanded, movesGenerated, duplicatesSkipped,
+                        transpositions.size(), Duration.ofNanos(System.nanoTime() - iterationStart)));
+                if (found) {
+                    res = Solver.Outcome.SOLVED;
+                    break;
+                }
+                if (outcome != null) {
+                    res = outcome;
+                    break;
+                }
+                if (nextThreshold == CatCoverageHeuristic.UNREACHABLE || exhausted()) {
+                    break;
+                }
+                threshold = nextThreshold;
+            }
+            var closestPath = new Solution(board, closest);
+            var solution = res == Solver.Outcome.SOLVED ? closestPath : null;
+            int lowerBound = solution != null ? solution.movesMade() : threshold;
+            return new Solver.SearchResult(solution, new SolverStats(bounds), res, lowerBound, closestPath);
+        }
+
+        private boolean search(Board current, int moves) {
+            int estimate = heuristic.estimate(current.occupied());
+            if (moves + estimate > threshold) {
+                nextThreshold = Math.min(nextThreshold, moves + estimate);
+                if (cut != null && !transpositions.contains(current.hash())) {
+                    cut.putIfAbsent(current.hash(), moves);
+                    if (cut.size() > transpositions.capacity()) {
+                        cut = null;
+                    }
+                }
+                return false;
+            }
+            outcome = stopCheck(budget, start, nodes++);
+            if (outcome != null) {
+                return false;
+            }
+            int uncovered = estimate == 0 ? 0 : current.placementTable().uncoveredCats(current.occupied());
+            if (uncovered < closestUncovered) {
+                closest = moves(current.placementTable(), moves);
+                closestUncovered = uncovered;
+            }
+            if (current.isFinished()) {
+                return true;
+            }
+            if (!transpositions.offer(current.hash(), moves)) {
+                duplicatesSkipped++;
+                return false;
+            }
+            if (expanded >= budget.maxNodes()) {
+                outcome = Solver.Outcome.NODE_LIMIT;
+                return false;
+            }
+            expanded++;
+            nodesExpanded++;
+            var children = new MoveList();
+            current.forEachDistinctMove(children::add);
+            movesGenerated += children.size;
+            if (moves == pathPieces.length) {
+                pathPieces = Arrays.copyOf(pathPieces, moves * 2);
+                pathPlacements = Arrays.copyOf(pathPlacements, moves * 2);
+            }
+            for (int i = 0; i < children.size; i++) {
+                pathPieces[moves] = children.pieces[i];
+                pathPlacements[moves] = children.placements[i];
+                if (search(current.makeMove(children.pieces[i], children.placements[i]), moves + 1)) {
+                    return true;
+                }
+                if (outcome != null) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Whether the iteration reached every state there is: the table kept all states it reached, and each state
+         * cut off by the threshold was reached after all, so no state is left that a higher threshold could reach.
+         */
+        private boolean exhausted() {
+            if (cut == null || transpositions.evicted()) {
+                return false;
+            }
+            boolean[] res = {true};
+            cut.forEach((key, moves) -> res[0] &= transpositions.contains(key));
+            return res[0];
+        }
+
+        /**
+         * The first moves of the current path.
+         */
+        private List<Move> moves(PlacementTable table, int count) {
+            var res = new ArrayList<Move>(count);
+            for (int i = 0; i < count; i++) {
+                var moved = table.piece(pathPieces[i], pathPlacements[i]);
+                res.add(new Move(moved.id(), moved.rotation(), moved.row(), moved.col()));
+            }
+            return res;
+        }
+    }
+
+    private static final class MoveList {
+        private int[] pieces = new int[32];
+        private int[] placements = new int[32];
+        private int size;
+
+        private void add(int piece, int placement) {
+            if (size == pieces.length) {
+                pieces = Arrays.copyOf(pieces, size * 2);
+                placements = Arrays.copyOf(placements, size * 2);
+            }
+            pieces[size] = piece;
+            placements[size] = placement;
+            size++;
+        }
+    }
+
+    /**
+     * Lossy table of the fewest moves each state was reached with in the current IDA* iteration. A state reached
+     * again with at least as many moves has nothing new to offer and is pruned. States are probed linearly over at
+     * most {@link #PROBES} slots; once those are all taken, the one reached with the most moves is replaced.
+     */
+    private static final class TranspositionTable {
+        private static final int PROBES = 64;
+
+        private final long[] keys;
+        private final int[] moves;
+        private final int mask;
+        private final int probes;
+        private int size;
+        private boolean evicted;
+
+        private TranspositionTable(int entries) {
+            int capacity = entries == 1 ? 1 : Integer.highestOneBit(entries - 1) << 1;
+            this.keys = new long[capacity];
+            this.moves = new int[capacity];
+            this.mask = capacity - 1;
+            this.probes = Math.min(PROBES, capacity);
+        }
+
+        private void clear() {
+            Arrays.fill(moves, -1);
+            size = 0;
+            evicted = false;
+        }
+
+        /**
+         * Records the state, returning false if it was already reached with at most the given number of moves.
+         */
+        private boolean offer(long key, int movesMade) {
+            int replaced = slot(key);
+            for (int i = 0, slot = replaced; i < probes; i++, slot = (slot + 1) & mask) {
+                if (moves[slot] < 0) {
+                    replaced = slot;
+                    size++;
+                    break;
+                }
+                if (keys[slot] == key) {
+                    if (moves[slot] <= movesMade) {
+                        return false;
+                    }
+                    replaced = slot;
+                    break;
+                }
+                if (moves[slot] > moves[replaced]) {
+                    replaced = slot;
+                }
+                evicted |= i == probes - 1;
+            }
+            keys[replaced] = key;
+            moves[replaced] = movesMade;
+            return true;
+        }
+
+        private boolean contains(long key) {
+            for (int i = 0, slot = slot(key); i < probes && moves[slot] >= 0; i++, slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        /**
+         * Whether a state was replaced since the table was cleared, so the table no longer holds every state offered.
+         */
+        private boolean evicted() {
+            return evicted;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative histogram of latencies over fixed buckets, safe to record into from many threads at once and written
+ * out in the Prometheus text format.
+ */
+final class LatencyHistogram {
+
+    // upper bounds of the buckets in seconds, the last bucket being unbounded
+    private static final double[] BOUNDS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(Duration latency) {
+        double seconds = latency.toNanos() / 1e9;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && seconds > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(latency.toNanos());
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Appends the buckets, sum and count of the histogram with the given metric name and labels, e.g.
+     * {@code outcome="solved"}.
+     */
+    void writeTo(StringBuilder out, String name, String labels) {
+        var separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            var bound = i < BOUNDS.length ? String.format(Locale.ROOT, "%s", BOUNDS[i]) : "+Inf";
+            out.append(String.format(Locale.ROOT, "%s_bucket{%s%sle=\"%s\"} %d\n", name, labels, separator, bound, cumulative));
+        }
+        var braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(String.format(Locale.ROOT, "%s_sum%s %.6f\n", name, braces, sumNanos.sum() / 1e9));
+        out.append(String.format(Locale.ROOT, "%s_count%s %d\n", name, braces, cumulative));
+    }
+}
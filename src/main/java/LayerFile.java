@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File of fixed-width {@code long} state keys in ascending order, written and read through memory-mapped windows
+ * so neither side holds more than one window of it on the heap. The count is kept in memory, not in the file.
+ */
+class LayerFile {
+
+    // keys per mapped window, 32 MB
+    private static final int WINDOW_KEYS = 1 << 22;
+
+    private final Path file;
+    private final long count;
+    private final List<MappedByteBuffer> windows;
+
+    private LayerFile(Path file, long count) throws IOException {
+        this.file = file;
+        this.count = count;
+        this.windows = new ArrayList<>();
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long first = 0; first < count; first += WINDOW_KEYS) {
+                long keys = Math.min(WINDOW_KEYS, count - first);
+                var window = channel.map(FileChannel.MapMode.READ_ONLY, first * Long.BYTES, keys * Long.BYTES);
+                window.order(ByteOrder.nativeOrder());
+                windows.add(window);
+            }
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long get(long index) {
+        return windows.get((int) (index / WINDOW_KEYS)).getLong((int) (index % WINDOW_KEYS) * Long.BYTES);
+    }
+
+    boolean contains(long key) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long found = get(middle);
+            if (found < key) {
+                low = middle + 1;
+            } else if (found > key) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the keys in order.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    final class Cursor {
+        private long index;
+
+        boolean hasNext() {
+            return index < count;
+        }
+
+        long peek() {
+            return get(index);
+        }
+
+        long next() {
+            return get(index++);
+        }
+
+        /**
+         * Whether the key is in the file, moving past every smaller key. Keys must be asked for in ascending order.
+         */
+        boolean skipTo(long key) {
+            while (index < count && get(index) < key) {
+                index++;
+            }
+            return index < count && get(index) == key;
+        }
+    }
+
+    /**
+     * Writes keys in the order given, which must be ascending.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long count;
+
+        Writer(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        void add(long key) throws IOException {
+            if (count % WINDOW_KEYS == 0) {
+                window = channel.map(FileChannel.MapMode.READ_WRITE, count * Long.BYTES, (long) WINDOW_KEYS * Long.BYTES);
+                window.order(ByteOrder.nativeOrder());
+            }
+            window.putLong((int) (count % WINDOW_KEYS) * Long.BYTES, key);
+            count++;
+        }
+
+        /**
+         * Finishes the file and opens it for reading.
+         */
+        LayerFile finish() throws IOException {
+            // drop the unwritten tail of the last window
+            channel.truncate(count * Long.BYTES);
+            close();
+            return new LayerFile(file, count);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Map from primitive {@code long} keys to {@code int} values using open addressing with linear probing, like
+ * {@link VisitedSet}, for when a state key must lead back to where the state is stored.
+ */
+public final class LongIntMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int resizeThreshold;
+    private int size;
+    // the empty marker cannot be stored in a slot, so its value is kept separately
+    private int emptyValue = MISSING;
+
+    public LongIntMap(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, expectedSize + expectedSize / 3L + 1);
+        long capacity = Long.highestOneBit(needed - 1) << 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Expected size %d exceeds the maximum capacity of %d slots.", expectedSize, MAX_CAPACITY));
+        }
+        allocate((int) capacity);
+    }
+
+    /**
+     * Value of the key, or {@link #MISSING} if it is absent.
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyValue;
+        }
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            if (keys[index] == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Associates the value with the key unless it is present, returning the value already present or
+     * {@link #MISSING}. Values must not be negative.
+     */
+    public int putIfAbsent(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(String.format("Value %d is negative.", value));
+        }
+        if (key == EMPTY) {
+            int existing = emptyValue;
+            if (existing == MISSING) {
+                emptyValue = value;
+                size++;
+            }
+            return existing;
+        }
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            if (keys[index] == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                if (size > resizeThreshold) {
+                    grow();
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Associates the value with the key, replacing any value present, and returns the value replaced or
+     * {@link #MISSING}. Values must not be negative.
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(String.format("Value %d is negative.", value));
+        }
+        if (key == EMPTY) {
+            int existing = emptyValue;
+            if (existing == MISSING) {
+                size++;
+            }
+            emptyValue = value;
+            return existing;
+        }
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                int existing = values[index];
+                values[index] = value;
+                return existing;
+            }
+            if (keys[index] == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                if (size > resizeThreshold) {
+                    grow();
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the consumer for every entry, in no particular order.
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (emptyValue != MISSING) {
+            consumer.accept(EMPTY, emptyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void grow() {
+        if (keys.length >= MAX_CAPACITY) {
+            throw new IllegalStateException(String.format("Map cannot grow beyond %d slots.", MAX_CAPACITY));
+        }
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.resizeThreshold = capacity / 4 * 3;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
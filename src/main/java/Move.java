@@ -0,0 +1,4 @@
+/**
+ * Relocation of a piece: its rotation relative to how it was parsed and the cell its anchor square moves to.
+ */
+public record Move(int pieceId, int rotation, int row, int column) {}
@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * For every piece, the bitset of its placements that are cat-safe and free of the other pieces. A piece's own
+ * current placement is included and skipped when iterating.
+ * <p>
+ * A move only changes the cells the moved piece leaves and enters, so the set after a move is derived from the set
+ * before it: placements covering newly entered cells are dropped, and only placements covering vacated cells are
+ * checked again. The moved piece's own set does not change, as the other pieces did not move. Sets are immutable
+ * and share the bitsets of pieces that did not change, so the cost of a move scales with the cells it changes and
+ * not with the size of the board.
+ */
+public final class MoveSet {
+
+    private final PlacementTable table;
+    private final long[][] legal;
+
+    private MoveSet(PlacementTable table, long[][] legal) {
+        this.table = table;
+        this.legal = legal;
+    }
+
+    /**
+     * Computes the set from scratch for pieces at the given placements.
+     */
+    public static MoveSet of(PlacementTable table, int[] placements, long[] occupied) {
+        var others = occupied.clone();
+        var legal = new long[placements.length][];
+        for (int piece = 0; piece < placements.length; piece++) {
+            table.vacate(others, piece, placements[piece]);
+            legal[piece] = new long[PlacementTable.wordsFor(table.placementCount(piece))];
+            if (others.length == 1) {
+                table.legalPlacements(piece, others[0], legal[piece]);
+            } else {
+                for (int p = 0; p < table.placementCount(piece); p++) {
+                    if (table.isCatSafe(piece, p) && table.fits(piece, p, others)) {
+                        legal[piece][p >>> 6] |= 1L << p;
+                    }
+                }
+            }
+            table.occupy(others, piece, placements[piece]);
+        }
+        return new MoveSet(table, legal);
+    }
+
+    /**
+     * The set once the piece has moved between the given placements.
+     *
+     * @param placements placements after the move
+     * @param occupied   occupancy after the move
+     */
+    public MoveSet after(int movedPiece, int from, int to, int[] placements, long[] occupied) {
+        int size = table.pieceSize(movedPiece);
+        var fromCells = new int[size];
+        var toCells = new int[size];
+        table.cellsOf(movedPiece, from, fromCells);
+        table.cellsOf(movedPiece, to, toCells);
+        var entered = without(toCells, fromCells);
+        var vacated = without(fromCells, toCells);
+
+        var res = legal.clone();
+        if (entered.length == 0 && vacated.length == 0) {
+            return new MoveSet(table, res);
+        }
+        var others = occupied.clone();
+        var covering = new int[0];
+        for (int piece = 0; piece < legal.length; piece++) {
+            if (piece == movedPiece) {
+                continue;
+            }
+            if (covering.length < 4 * table.pieceSize(piece)) {
+                covering = new int[4 * table.pieceSize(piece)];
+            }
+            long[] bits = null;
+            for (int cell : entered) {
+                int count = table.placementsCovering(piece, cell, covering);
+                for (int i = 0; i < count; i++) {
+                    int p = covering[i];
+                    if ((res[piece][p >>> 6] & 1L << p) != 0) {
+                        if (bits == null) {
+                            bits = legal[piece].clone();
+                            res[piece] = bits;
+                        }
+                        bits[p >>> 6] &= ~(1L << p);
+                    }
+                }
+            }
+            if (vacated.length == 0) {
+                continue;
+            }
+            table.vacate(others, piece, placements[piece]);
+            for (int cell : vacated) {
+                int count = table.placementsCovering(piece, cell, covering);
+                for (int i = 0; i < count; i++) {
+                    int p = covering[i];
+                    if ((res[piece][p >>> 6] & 1L << p) == 0 && table.isCatSafe(piece, p) && table.fits(piece, p, others)) {
+                        if (bits == null) {
+                            bits = legal[piece].clone();
+                            res[piece] = bits;
+                        }
+                        bits[p >>> 6] |= 1L << p;
+                    }
+                }
+            }
+            table.occupy(others, piece, placements[piece]);
+        }
+        return new MoveSet(table, res);
+    }
+
+    private static int[] without(int[] cells, int[] removed) {
+        var res = new int[cells.length];
+        int count = 0;
+        for (int cell : cells) {
+            boolean kept = true;
+            for (int other : removed) {
+                kept &= other != cell;
+            }
+            if (kept) {
+                res[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    /**
+     * Calls the consumer for every placement in the set other than a piece's current one.
+     */
+    public void forEach(int[] placements, PlacementTable.MoveConsumer consumer) {
+        for (int piece = 0; piece < legal.length; piece++) {
+            var bits = legal[piece];
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    int p = w << 6 | Long.numberOfTrailingZeros(word);
+                    if (p != placements[piece]) {
+                        consumer.accept(piece, p);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #forEach(int[], PlacementTable.MoveConsumer)}, but only the first of placements covering the same
+     * cells and boxes, and none that look the same as a piece's current placement.
+     */
+    public void forEachDistinct(int[] placements, PlacementTable.MoveConsumer consumer) {
+        for (int piece = 0; piece < legal.length; piece++) {
+            int current = table.canonicalPlacement(piece, placements[piece]);
+            var bits = legal[piece];
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    int p = w << 6 | Long.numberOfTrailingZeros(word);
+                    if (p != current && table.canonicalPlacement(piece, p) == p) {
+                        consumer.accept(piece, p);
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean contains(int piece, int placement) {
+        return (legal[piece][placement >>> 6] & 1L << placement) != 0;
+    }
+}
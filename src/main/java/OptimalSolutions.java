@@ -0,0 +1,387 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Every optimal solution of a puzzle, counted by a single breadth-first search that keeps, per position, the number
+ * of shortest paths reaching it: a position found at depth d adds its count to every position it leads to at depth
+ * d + 1. The search stops after the first depth with a finished position, whose counts add up to the number of
+ * optimal solutions.
+ * <p>
+ * Solutions are told apart by the positions they pass through, as in {@link Solver} with symmetry reduced: moving
+ * one of two identical pieces or turning a symmetric piece into a rotation that looks the same does not make another
+ * solution. All orders of moves that commute do count, so moves are not pruned by their order.
+ * <p>
+ * The solutions themselves are enumerated lazily by walking back from every finished position: every move can be
+ * undone, and each position one depth closer to the start is on a shortest path from it, so the walk never needs to
+ * back out of a dead end.
+ */
+public final class OptimalSolutions implements Iterable<Solution> {
+
+    public static final int UNSOLVABLE = -1;
+
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final Board board;
+    private final Neighbours neighbours;
+    // wide key of a position of every set of positions that look the same, in the order found, so depth by depth
+    private final long[] keys;
+    private final int keyWords;
+    // index of the first position of every depth, followed by the number of positions
+    private final int[] depthStarts;
+    private final int[] goals;
+    private final long count;
+
+    private OptimalSolutions(Board board, Neighbours neighbours, long[] keys, int[] depthStarts, int[] goals, long count) {
+        this.board = board;
+        this.neighbours = neighbours;
+        this.keys = keys;
+        this.keyWords = neighbours.table.keyWords();
+        this.depthStarts = depthStarts;
+        this.goals = goals;
+        this.count = count;
+    }
+
+    /**
+     * Searches the board for all of its optimal solutions.
+     *
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public static OptimalSolutions find(Board board) {
+        var table = board.placementTable();
+        var neighbours = new Neighbours(table);
+        var start = new long[table.keyWords()];
+        table.encode(board.placements(), start, 0);
+        var positions = new Positions(neighbours, start);
+        var depthStarts = new ArrayList<Integer>();
+        var goals = new ArrayList<Integer>();
+
+        int depthStart = 0;
+        while (depthStart < positions.size) {
+            int depthEnd = positions.size;
+            depthStarts.add(depthStart);
+            for (int i = depthStart; i < depthEnd; i++) {
+                if (neighbours.isFinished(positions.keys, i * positions.keyWords)) {
+                    goals.add(i);
+                }
+            }
+            if (!goals.isEmpty()) {
+                break;
+            }
+
+            for (int i = depthStart; i < depthEnd; i++) {
+                if ((i - depthStart) % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Counting the optimal solutions was interrupted.");
+                }
+                int parent = i;
+                neighbours.forEach(positions.keys, i * positions.keyWords, (piece, placement) ->
+                        positions.reach(parent, piece, placement, depthEnd, table));
+            }
+            depthStart = depthEnd;
+        }
+        depthStarts.add(positions.size);
+
+        long count = 0;
+        for (int goal : goals) {
+            count = saturatedAdd(count, positions.paths[goal]);
+        }
+        return new OptimalSolutions(board, neighbours, positions.keys,
+                depthStarts.stream().mapToInt(Integer::intValue).toArray(),
+                goals.stream().mapToInt(Integer::intValue).toArray(), count);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long res = a + b;
+        return res < 0 ? Long.MAX_VALUE : res;
+    }
+
+    /**
+     * Number of distinct optimal solutions, 0 if the board cannot be finished. Counts beyond {@link Long#MAX_VALUE}
+     * are reported as {@link Long#MAX_VALUE}.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Moves of every optimal solution, or {@link #UNSOLVABLE}.
+     */
+    public int moves() {
+        return goals.length == 0 ? UNSOLVABLE : depthStarts.length - 2;
+    }
+
+    /**
+     * Number of distinct positions searched.
+     */
+    public int positions() {
+        return depthStarts[depthStarts.length - 1];
+    }
+
+    /**
+     * Enumerates the optimal solutions one at a time, each exactly once, building only the solutions asked for.
+     */
+    @Override
+    public Iterator<Solution> iterator() {
+        return new SolutionIterator();
+    }
+
+    /**
+     * Moves of positions given by their wide keys, and the index of the position each one leads to, told apart by
+     * its canonical key, so positions that look the same are one. Compact puzzles map single word keys to indices,
+     * the others number their canonical wide keys in the order added, which is the order positions are found.
+     */
+    private static final class Neighbours {
+        @FunctionalInterface
+        private interface Consumer {
+            void accept(int piece, int placement);
+        }
+
+        private final PlacementTable table;
+        private final int[] placements;
+        private final LongIntMap indices;
+        private final WideKeySet wideIndices;
+        private final long[] parent;
+        // canonical key of the position the move being reported leads to
+        private final long[] child;
+        private long childKey;
+
+        private Neighbours(PlacementTable table) {
+            this.table = table;
+            this.placements = new int[table.pieceCount()];
+            this.indices = table.isCompact() ? new LongIntMap(DEFAULT_EXPECTED_STATES) : null;
+            this.wideIndices = table.isCompact() ? null : new WideKeySet(table.keyWords(), DEFAULT_EXPECTED_STATES);
+            this.parent = new long[table.keyWords()];
+            this.child = new long[table.keyWords()];
+        }
+
+        /**
+         * Numbers the start position 0.
+         */
+        private void start(long[] start) {
+            if (table.isCompact()) {
+                indices.putIfAbsent(table.canonicalKey(start[0]), 0);
+            } else {
+                System.arraycopy(start, 0, child, 0, child.length);
+                table.canonicalKey(child, 0);
+                wideIndices.add(child, 0);
+            }
+        }
+
+        /**
+         * Index of the position the move being reported leads to, or {@link LongIntMap#MISSING} if it has none.
+         */
+        private int index() {
+            if (table.isCompact()) {
+                return indices.get(childKey);
+            }
+            int index = wideIndices.indexOf(child, 0);
+            return index < 0 ? LongIntMap.MISSING : index;
+        }
+
+        /**
+         * Like {@link #index()}, but gives a position without an index the next one, which must be the number of
+         * positions so far, and then returns {@link LongIntMap#MISSING}.
+         */
+        private int indexOrAdd(int next) {
+            if (table.isCompact()) {
+                return indices.putIfAbsent(childKey, next);
+            }
+            return wideIndices.add(child, 0) ? LongIntMap.MISSING : wideIndices.indexOf(child, 0);
+        }
+
+        private boolean isFinished(long[] keys, int offset) {
+            table.decode(keys, offset, placements);
+            return table.isCompact()
+                    ? table.isFinished(table.occupancy(placements))
+                    : table.isFinished(table.occupancyWords(placements));
+        }
+
+        /**
+         * Calls the consumer for every move of the position that looks different from the others, with
+         * {@link #index()} telling where each one leads.
+         */
+        private void forEach(long[] keys, int offset, Consumer consumer) {
+            table.decode(keys, offset, placements);
+            if (table.isCompact()) {
+                long key = keys[offset];
+                table.forEachDistinctMove(placements, table.occupancy(placements), (piece, placement) -> {
+                    childKey = table.canonicalKey(table.withPlacement(key, piece, placement));
+                    consumer.accept(piece, placement);
+                });
+            } else {
+                // the consumer may grow the array of keys
+                System.arraycopy(keys, offset, parent, 0, parent.length);
+                MoveSet.of(table, placements, table.occupancyWords(placements)).forEachDistinct(placements, (piece, placement) -> {
+                    System.arraycopy(parent, 0, child, 0, child.length);
+                    table.setPlacement(child, 0, piece, placement);
+                    table.canonicalKey(child, 0);
+                    consumer.accept(piece, placement);
+                });
+            }
+        }
+    }
+
+    /**
+     * Positions found so far with their number of shortest paths, numbered in the order found, so depth by depth.
+     */
+    private static final class Positions {
+        private final Neighbours neighbours;
+        private final int keyWords;
+        private long[] keys;
+        private long[] paths = new long[DEFAULT_EXPECTED_STATES];
+        // per position, the last position that added to its count, so a position reached twice from the same
+        // parent by moves that look the same only counts once
+        private int[] lastParent = new int[DEFAULT_EXPECTED_STATES];
+        private int size;
+
+        private Positions(Neighbours neighbours, long[] start) {
+            this.neighbours = neighbours;
+            this.keyWords = start.length;
+            this.keys = new long[DEFAULT_EXPECTED_STATES * keyWords];
+            neighbours.start(start);
+            append(start, 0);
+            paths[0] = 1;
+        }
+
+        /**
+         * Appends a copy of the wide key at the offset and returns the index of the position.
+         */
+        private int append(long[] key, int offset) {
+            if (size == paths.length) {
+                int maxSize = (Integer.MAX_VALUE - 8) / keyWords;
+                if (size >= maxSize) {
+                    throw new IllegalStateException("Too many positions to count the solutions of.");
+                }
+                int capacity = (int) Math.min(maxSize, (long) size * 2);
+                keys = Arrays.copyOf(keys, capacity * keyWords);
+                paths = Arrays.copyOf(paths, capacity);
+                lastParent = Arrays.copyOf(lastParent, capacity);
+            }
+            System.arraycopy(key, offset, keys, size * keyWords, keyWords);
+            lastParent[size] = -1;
+            return size++;
+        }
+
+        /**
+         * Adds the paths of the parent to the position the move being reported leads to if it is new or was first
+         * found at the depth being built, which starts at {@code depthEnd}.
+         */
+        private void reach(int parent, int piece, int placement, int depthEnd, PlacementTable table) {
+            int index = neighbours.indexOrAdd(size);
+            if (index == LongIntMap.MISSING) {
+                index = append(keys, parent * keyWords);
+                table.setPlacement(keys, index * keyWords, piece, placement);
+            }
+            if (index >= depthEnd && lastParent[index] != parent) {
+                lastParent[index] = parent;
+                paths[index] = saturatedAdd(paths[index], paths[parent]);
+            }
+        }
+    }
+
+    /**
+     * Depth-first walk from the finished positions back to the start. The stack holds per depth the positions one
+     * depth closer to the start that lead to the position above them, and which of them is being followed.
+     */
+    private final class SolutionIterator implements Iterator<Solution> {
+        private final int depth = moves();
+        private final int[][] choices = new int[Math.max(depth, 0) + 1][];
+        private final int[] chosen = new int[Math.max(depth, 0) + 1];
+        private boolean ready;
+
+        private SolutionIterator() {
+            if (depth >= 0) {
+                choices[depth] = goals;
+                chosen[depth] = 0;
+                descend(depth);
+                ready = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ready;
+        }
+
+        @Override
+        public Solution next() {
+            if (!ready) {
+                throw new NoSuchElementException();
+            }
+            var res = solution();
+            advance();
+            return res;
+        }
+
+        /**
+         * Fills the stack below the given depth with the first way back to the start.
+         */
+        private void descend(int from) {
+            for (int d = from; d > 0; d--) {
+                choices[d - 1] = predecessors(choices[d][chosen[d]], d);
+                chosen[d - 1] = 0;
+            }
+        }
+
+        private void advance() {
+            for (int d = 0; d <= depth; d++) {
+                if (++chosen[d] < choices[d].length) {
+                    descend(d);
+                    return;
+                }
+            }
+            ready = false;
+        }
+
+        /**
+         * Positions at depth {@code d - 1} that lead to the position at depth d, each once.
+         */
+        private int[] predecessors(int index, int d) {
+            int first = depthStarts[d - 1];
+            int end = depthStarts[d];
+            int[][] res = {new int[8]};
+            int[] size = {0};
+            neighbours.forEach(keys, index * keyWords, (piece, placement) -> {
+                int previous = neighbours.index();
+                if (previous >= first && previous < end) {
+                    for (int i = 0; i < size[0]; i++) {
+                        if (res[0][i] == previous) {
+                            return;
+                        }
+                    }
+                    if (size[0] == res[0].length) {
+                        res[0] = Arrays.copyOf(res[0], size[0] * 2);
+                    }
+                    res[0][size[0]++] = previous;
+                }
+            });
+            return Arrays.copyOf(res[0], size[0]);
+        }
+
+        /**
+         * Turns the positions on the stack into moves of the pieces of the board, following from the start the move
+         * that leads to a position looking like the next one.
+         */
+        private Solution solution() {
+            var table = neighbours.table;
+            var path = new long[(depth + 1) * keyWords];
+            table.encode(board.placements(), path, 0);
+            for (int d = 1; d <= depth; d++) {
+                int offset = d * keyWords;
+                int target = choices[d][chosen[d]];
+                boolean[] found = {false};
+                neighbours.forEach(path, offset - keyWords, (piece, placement) -> {
+                    if (!found[0] && neighbours.index() == target) {
+                        found[0] = true;
+                        System.arraycopy(path, offset - keyWords, path, offset, keyWords);
+                        table.setPlacement(path, offset, piece, placement);
+                    }
+                });
+            }
+            return Solution.fromPath(board, path);
+        }
+    }
+}
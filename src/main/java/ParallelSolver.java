@@ -0,0 +1,425 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Breadth-first solver that expands one depth at a time, splitting each frontier over a {@link ForkJoinPool}.
+ * A depth is only searched once the previous one is exhausted, so the first finished board has the minimal
+ * number of moves, just like {@link Solver}. Positions that look the same are explored once.
+ * <p>
+ * As in {@link Solver}, states are packed keys with the index of the state they were reached from, so no
+ * {@link Board} is kept per explored state. Every task writes the children of its share of the frontier to a chunk
+ * of its own, and the chunks are joined in frontier order into the next depth.
+ */
+public class ParallelSolver {
+
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+    private static final int STRIPES_PER_THREAD = 8;
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final ForkJoinPool pool;
+
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Board solve(Board board) {
+        var solution = findSolution(board);
+        return solution == null ? null : solution.finalBoard();
+    }
+
+    /**
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public Solution findSolution(Board board) {
+        var res = search(board, SearchBudget.UNLIMITED);
+        if (res.outcome() == Solver.Outcome.CANCELLED) {
+            throw new CancellationException("Solve was interrupted.");
+        }
+        return res.solution();
+    }
+
+    /**
+     * Like {@link Solver#search(Board, SolverListener, SearchBudget)}, stops once the budget is spent, the budget's
+     * cancellation reports true or the calling thread is interrupted, returning what was found so far. The interrupt
+     * is left set. Every task checks the budget on its own, so a search may store a few states more than allowed.
+     */
+    public Solver.SearchResult search(Board board, SearchBudget budget) {
+        var table = board.placementTable();
+        var root = new long[table.keyWords()];
+        table.encode(board.placements(), root, 0);
+        var search = new Search(table, budget, pool.getParallelism() * STRIPES_PER_THREAD);
+        if (table.isCompact()) {
+            search.visited.add(table.canonicalKey(root[0]));
+        } else {
+            var canonical = root.clone();
+            table.canonicalKey(canonical, 0);
+            search.visitWide(canonical);
+        }
+        search.layers.add(new Layer(root, new int[]{StateStore.NO_PARENT}, 1));
+
+        var depths = new ArrayList<DepthStats>();
+        long stored = 1;
+        long expanded = 0;
+        int closestDepth = 0;
+        int closestIndex = 0;
+        int closestUncovered = Integer.MAX_VALUE;
+        int depth = 0;
+        var outcome = Solver.Outcome.UNSOLVABLE;
+        while (true) {
+            long depthStart = System.nanoTime();
+            var layer = search.layers.get(depth);
+            var chunks = new Chunk[(layer.size + SEQUENTIAL_THRESHOLD - 1) / SEQUENTIAL_THRESHOLD];
+            search.expandable = (int) Math.min(layer.size, budget.maxNodes() - expanded);
+            // the whole depth is checked for a finished state first, a single expanded state can have many children
+            expand(search, new ExpandTask(search, depth, false, chunks, 0, chunks.length));
+            if (search.stop.get() == null) {
+                expand(search, new ExpandTask(search, depth, true, chunks, 0, chunks.length));
+            }
+
+            var next = join(chunks, table.keyWords());
+            long nodes = 0;
+            long moves = 0;
+            long duplicates = 0;
+            for (var chunk : chunks) {
+                if (chunk == null) {
+                    continue;
+                }
+                nodes += chunk.nodesExpanded;
+                moves += chunk.movesGenerated;
+                duplicates += chunk.duplicatesSkipped;
+                if (chunk.closestUncovered < closestUncovered) {
+                    closestDepth = depth;
+                    closestIndex = chunk.closestIndex;
+                    closestUncovered = chunk.closestUncovered;
+                }
+            }
+            expanded += nodes;
+            stored += next.size;
+            depths.add(new DepthStats(depth, layer.size, nodes, moves, duplicates, stored,
+                    Duration.ofNanos(System.nanoTime() - depthStart)));
+
+            var stop = search.stop.get();
+            if (stop == null && search.expandable < layer.size) {
+                stop = Solver.Outcome.NODE_LIMIT;
+            }
+            if (stop != null) {
+                outcome = stop;
+                break;
+            }
+            if (next.size == 0) {
+                break;
+            }
+            search.layers.add(next);
+            depth++;
+        }
+
+        Solution solution = null;
+        if (outcome == Solver.Outcome.SOLVED) {
+            solution = path(board, search.layers, depth, search.found.get());
+            closestDepth = depth;
+            closestIndex = search.found.get();
+        }
+        int lowerBound = solution != null ? solution.movesMade() : depth;
+        return new Solver.SearchResult(solution, new SolverStats(depths), outcome, lowerBound,
+                path(board, search.layers, closestDepth, closestIndex));
+    }
+
+    /**
+     * Runs the task, stopping it as cancelled if the calling thread is interrupted while waiting for it.
+     */
+    private void expand(Search search, ExpandTask task) {
+        pool.execute(task);
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            search.stop(Solver.Outcome.CANCELLED);
+            task.quietlyJoin();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Layer join(Chunk[] chunks, int keyWords) {
+        int size = 0;
+        for (var chunk : chunks) {
+            size = Math.addExact(size, chunk == null ? 0 : chunk.size);
+        }
+        var keys = new long[Math.multiplyExact(size, keyWords)];
+        var parents = new int[size];
+        int at = 0;
+        for (var chunk : chunks) {
+            if (chunk != null) {
+                System.arraycopy(chunk.keys, 0, keys, at * keyWords, chunk.size * keyWords);
+                System.arraycopy(chunk.parents, 0, parents, at, chunk.size);
+                at += chunk.size;
+            }
+        }
+        return new Layer(keys, parents, size);
+    }
+
+    private static Solution path(Board board, List<Layer> layers, int depth, int index) {
+        int words = board.placementTable().keyWords();
+        var path = new long[(depth + 1) * words];
+        for (int d = depth, i = index; d >= 0; i = layers.get(d).parents[i], d--) {
+            System.arraycopy(layers.get(d).keys, i * words, path, d * words, words);
+        }
+        return Solution.fromPath(board, path);
+    }
+
+    /**
+     * The states of one depth: their wide keys and the index of the state of the depth before each was reached
+     * from.
+     */
+    private record Layer(long[] keys, int[] parents, int size) {}
+
+    /**
+     * What the tasks of a search share: the depths so far, the visited set and why the search stopped, if it did.
+     * Puzzles whose positions do not fit in a {@code long} visit their canonical wide keys in locked stripes of
+     * {@link WideKeySet}s instead.
+     */
+    private static final class Search {
+        private final PlacementTable table;
+        private final SearchBudget budget;
+        private final StripedVisitedSet visited;
+        private final WideKeySet[] wideVisited;
+        private final int wideStripeShift;
+        private final List<Layer> layers = new ArrayList<>();
+        private final long start = System.nanoTime();
+        private final AtomicReference<Solver.Outcome> stop = new AtomicReference<>();
+        private final AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicLong stored = new AtomicLong(1);
+        // states of the depth being searched from index 0 up to here may be expanded, within the node budget
+        private volatile int expandable;
+
+        private Search(PlacementTable table, SearchBudget budget, int stripeCount) {
+            this.table = table;
+            this.budget = budget;
+            int stripeBits = Integer.SIZE - Integer.numberOfLeadingZeros(stripeCount - 1);
+            if (table.isCompact()) {
+                this.visited = new StripedVisitedSet(stripeCount, DEFAULT_EXPECTED_STATES);
+                this.wideVisited = null;
+            } else {
+                this.visited = null;
+                this.wideVisited = new WideKeySet[1 << stripeBits];
+                for (int i = 0; i < wideVisited.length; i++) {
+                    wideVisited[i] = new WideKeySet(table.keyWords(), DEFAULT_EXPECTED_STATES / wideVisited.length);
+                }
+            }
+            this.wideStripeShift = Long.SIZE - stripeBits;
+        }
+
+        /**
+         * Adds the canonical wide key, returning false if it was already present.
+         */
+        private boolean visitWide(long[] canonicalKey) {
+            var stripe = wideVisited.length == 1 ? wideVisited[0]
+                    : wideVisited[(int) (WideKeySet.hash(canonicalKey, 0, canonicalKey.length) >>> wideStripeShift)];
+            synchronized (stripe) {
+                return stripe.add(canonicalKey, 0);
+            }
+        }
+
+        private void stop(Solver.Outcome outcome) {
+            stop.compareAndSet(null, outcome);
+        }
+
+        private boolean stopped() {
+            if (stop.get() != null) {
+                return true;
+            }
+            if (Thread.currentThread().isInterrupted() || budget.cancelled().getAsBoolean()) {
+                stop(Solver.Outcome.CANCELLED);
+            } else if (System.nanoTime() - start >= budget.maxNanos()) {
+                stop(Solver.Outcome.TIME_LIMIT);
+            }
+            return stop.get() != null;
+        }
+    }
+
+    /**
+     * Children found by one task, with its counters and its state with the fewest uncovered cats.
+     */
+    private static final class Chunk {
+        private final int keyWords;
+        private long[] keys;
+        private int[] parents = new int[16];
+        private int size;
+        private long nodesExpanded;
+        private long movesGenerated;
+        private long duplicatesSkipped;
+        private int closestIndex;
+        private int closestUncovered = Integer.MAX_VALUE;
+
+        private Chunk(int keyWords) {
+            this.keyWords = keyWords;
+            this.keys = new long[16 * keyWords];
+        }
+
+        /**
+         * Appends a state and returns the offset of its key, which the caller fills in.
+         */
+        private int add(int parent) {
+            if (size == parents.length) {
+                keys = Arrays.copyOf(keys, Math.multiplyExact(size * 2, keyWords));
+                parents = Arrays.copyOf(parents, size * 2);
+            }
+            parents[size] = parent;
+            return size++ * keyWords;
+        }
+    }
+
+    /**
+     * Checks or expands the states of a range of chunks, each chunk covering {@link #SEQUENTIAL_THRESHOLD} states of the
+     * depth.
+     */
+    private static final class ExpandTask extends RecursiveAction {
+
+        private final Search search;
+        private final int depth;
+        // false while checking the states for finished ones, true while generating their children
+        private final boolean expanding;
+        private final Chunk[] chunks;
+        private final int from;
+        private final int to;
+
+        private ExpandTask(Search search, int depth, boolean expanding, Chunk[] chunks, int from, int to) {
+            this.search = search;
+            this.depth = depth;
+            this.expanding = expanding;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(search, depth, expanding, chunks, from, middle),
+                        new ExpandTask(search, depth, expanding, chunks, middle, to));
+                return;
+            }
+            var table = search.table;
+            var layer = search.layers.get(depth);
+            var chunk = chunks[from];
+            if (chunk == null) {
+                chunk = new Chunk(table.keyWords());
+                chunks[from] = chunk;
+            }
+            var placements = new int[table.pieceCount()];
+            var key = new long[table.keyWords()];
+            long catMask = table.isCompact() ? table.catMask() : 0;
+            long occupied = 0;
+            long[] occupiedWords = null;
+            int start = from * SEQUENTIAL_THRESHOLD;
+            int end = Math.min(layer.size, start + SEQUENTIAL_THRESHOLD);
+            for (int i = start; i < end; i++) {
+                if (i == start || i % INTERRUPT_CHECK_INTERVAL == 0 ? search.stopped() : search.stop.get() != null) {
+                    return;
+                }
+                System.arraycopy(layer.keys, i * key.length, key, 0, key.length);
+                table.decode(key, 0, placements);
+                if (table.isCompact()) {
+                    occupied = table.occupancy(placements);
+                } else {
+                    occupiedWords = table.occupancyWords(placements);
+                }
+                if (!expanding) {
+                    int uncovered = table.isCompact() ? Long.bitCount(catMask & ~occupied) : table.uncoveredCats(occupiedWords);
+                    if (uncovered == 0) {
+                        search.found.accumulateAndGet(i, Math::min);
+                        search.stop(Solver.Outcome.SOLVED);
+                        return;
+                    }
+                    if (uncovered < chunk.closestUncovered) {
+                        chunk.closestIndex = i;
+                        chunk.closestUncovered = uncovered;
+                    }
+                    continue;
+                }
+                if (i >= search.expandable) {
+                    return;
+                }
+                if (search.stored.get() >= search.budget.maxStates()) {
+                    search.stop(Solver.Outcome.STATE_LIMIT);
+                    return;
+                }
+                int before = chunk.size;
+                chunk.nodesExpanded++;
+                if (table.isCompact()) {
+                    expandCompact(layer, i, key[0], placements, occupied, chunk);
+                } else {
+                    expandWide(i, key, placements, occupiedWords, chunk);
+                }
+                search.stored.addAndGet(chunk.size - before);
+            }
+        }
+
+        /**
+         * Children by canonical key, only generating one order of moves that commute, as {@link Solver} does.
+         */
+        private void expandCompact(Layer layer, int index, long key, int[] placements, long occupied, Chunk chunk) {
+            var table = search.table;
+            int movedPiece = -1;
+            long movedCells = 0;
+            if (depth > 0) {
+                long previous = search.layers.get(depth - 1).keys[layer.parents[index]];
+                movedPiece = table.movedPiece(key, previous);
+                movedCells = table.mask(movedPiece, placements[movedPiece])
+                        | table.mask(movedPiece, table.placement(previous, movedPiece));
+            }
+            table.forEachDistinctMove(placements, occupied, movedPiece, movedCells, (piece, placement) -> {
+                long child = table.withPlacement(key, piece, placement);
+                chunk.movesGenerated++;
+                if (search.visited.add(table.canonicalKey(child))) {
+                    int offset = chunk.add(index);
+                    chunk.keys[offset] = child;
+                } else {
+                    chunk.duplicatesSkipped++;
+                }
+            });
+        }
+
+        /**
+         * Children by canonical wide key, for puzzles whose positions do not fit in a {@code long}.
+         */
+        private void expandWide(int index, long[] key, int[] placements, long[] occupied, Chunk chunk) {
+            var table = search.table;
+            var canonical = new long[key.length];
+            MoveSet.of(table, placements, occupied).forEachDistinct(placements, (piece, placement) -> {
+                chunk.movesGenerated++;
+                System.arraycopy(key, 0, canonical, 0, key.length);
+                table.setPlacement(canonical, 0, piece, placement);
+                table.canonicalKey(canonical, 0);
+                if (search.visitWide(canonical)) {
+                    int offset = chunk.add(index);
+                    System.arraycopy(key, 0, chunk.keys, offset, key.length);
+                    table.setPlacement(chunk.keys, offset, piece, placement);
+                } else {
+                    chunk.duplicatesSkipped++;
+                }
+            });
+        }
+    }
+}
@@ -6,9 +6,11 @@ public class Piece {
     private final int row;
     private final int col;
     private final int id;
+    private final int rotation;
 
     public Piece(int id, List<Square> squares) {
         this.id = id;
+        this.rotation = 0;
         if (squares.isEmpty()) {
             throw new IllegalArgumentException("Piece must consist of at least one square.");
         }
@@ -17,22 +19,23 @@ public class Piece {
         this.squares = normalise(squares);
     }
 
-    private Piece(int id, List<Square> squares, int row, int col) {
+    private Piece(int id, List<Square> squares, int row, int col, int rotation) {
         this.id = id;
         this.squares = squares;
         this.row = row;
         this.col = col;
+        this.rotation = rotation;
     }
 
     public Piece withLocation(int row, int col) {
-        return new Piece(id, squares, row, col);
+        return new Piece(id, squares, row, col, rotation);
     }
 
     public Piece rotateCounterClockwise() {
         var newSquares = squares.stream()
                 .map(square -> new Square(square.pieceId(), square.relativeColumn() * -1, square.relativeRow(), square.type()))
                 .toList();
-        return new Piece(id, newSquares, row, col);
+        return new Piece(id, newSquares, row, col, (rotation + 1) % 4);
     }
 
     public List<Piece> getRotatedVariants() {
@@ -80,9 +83,14 @@ public class Piece {
     }
 
     public Optional<Square> getSquarePiece(int row, int col) {
-        return squares.stream()
-                .filter(square -> this.row + square.relativeRow() == row && this.col + square.relativeColumn() == col)
-                .findFirst();
+        int relativeRow = row - this.row;
+        int relativeColumn = col - this.col;
+        for (Square square : squares) {
+            if (square.relativeRow() == relativeRow && square.relativeColumn() == relativeColumn) {
+                return Optional.of(square);
+            }
+        }
+        return Optional.empty();
     }
 
     public int row() {
@@ -97,6 +105,13 @@ public class Piece {
         return id;
     }
 
+    /**
+     * Number of counter-clockwise quarter turns applied since the piece was built, in the range 0-3.
+     */
+    public int rotation() {
+        return rotation;
+    }
+
     private static List<Square> normalise(List<Square> squares) {
         var first = squares.getFirst();
         return squares.stream()
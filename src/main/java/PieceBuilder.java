@@ -4,13 +4,18 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class PieceBuilder {
 
-    private static final AtomicInteger counter = new AtomicInteger(0);
+    // ids of pieces built without one count down, so they never clash with the ids of a parsed board
+    private static final AtomicInteger counter = new AtomicInteger(-1);
 
     private final int pieceId;
     private final List<Square> squares;
 
     public PieceBuilder() {
-        this.pieceId = counter.getAndIncrement();
+        this(counter.getAndDecrement());
+    }
+
+    public PieceBuilder(int pieceId) {
+        this.pieceId = pieceId;
         squares = new ArrayList<>();
     }
 
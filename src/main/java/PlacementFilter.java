@@ -0,0 +1,29 @@
+/**
+ * Tests all placements of a piece at once against the cells taken by the other pieces. The Vector API
+ * implementation is used when the {@code jdk.incubator.vector} module is present, i.e. the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, unless the system property {@code catsandboxes.vector} is
+ * {@code false}; otherwise placements are tested one by one.
+ */
+interface PlacementFilter {
+
+    PlacementFilter DEFAULT = create();
+
+    /**
+     * Overwrites the first words of the bitset, as many as the cat-safe bitset has, with the placements whose mask
+     * misses the other pieces and whose bit is set in the cat-safe bitset.
+     *
+     * @param masks   bitboard of each placement
+     * @param others  bitboard of the cells taken by the other pieces
+     * @param catSafe bitset of the placements that put no normal square on a cat
+     * @param legal   bitset to fill, at least as long as the cat-safe bitset
+     */
+    void legal(long[] masks, long others, long[] catSafe, long[] legal);
+
+    private static PlacementFilter create() {
+        boolean enabled = !"false".equals(System.getProperty("catsandboxes.vector"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return new VectorPlacementFilter();
+        }
+        return new ScalarPlacementFilter();
+    }
+}
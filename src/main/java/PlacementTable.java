@@ -0,0 +1,977 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Every placement (rotation and anchor cell) of every piece of a puzzle that lies within the board, precomputed
+ * once so that move generation is a mask test against the current occupancy.
+ * Placements of a piece are indexed from 0; a position is the placement index of every piece.
+ * <p>
+ * Sets of cells are bitsets of {@code long} words: cell (row, col) maps to bit row * cols + col. Boards of at most
+ * 64 cells fit in a single word and also get the {@code long} bitboard methods the key-based solvers use; larger
+ * boards only have the word-array methods. A placement is stored as its rotation and anchor, its cells being the
+ * anchor plus a fixed offset per square, so the table grows with the number of placements and not with the board
+ * area on top of that.
+ */
+public class PlacementTable {
+
+    @FunctionalInterface
+    public interface MoveConsumer {
+        void accept(int piece, int placement);
+    }
+
+    @FunctionalInterface
+    public interface SquareConsumer {
+        void accept(int cell, boolean box);
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int words;
+    private final List<Cat> cats;
+    private final long[] catWords;
+
+    // indexed by [piece][rotation], the piece turned that many quarters, anchored at (0, 0)
+    private final Piece[][] variants;
+    // indexed by [piece][placement], the placed piece, created on first use so large boards do not build them all
+    private final Piece[][] placedPieces;
+    // indexed by [piece][rotation * size + square]
+    private final int[][] squareRows;
+    private final int[][] squareCols;
+    private final boolean[][] squareBoxes;
+    private final int[] sizes;
+    // indexed by [piece][placement], rotation * cells + anchor cell
+    private final int[][] origins;
+    private final boolean[][] catSafe;
+    // indexed by [piece], the bitset of the cat-safe placements
+    private final long[][] catSafeBits;
+    private final int maxPlacementWords;
+    // indexed by [piece][rotation * cells + anchor cell], -1 if the anchor is not a valid placement
+    private final int[][] lookup;
+    // bitboards indexed by [piece][placement], null for boards of more than 64 cells
+    private final long[][] masks;
+    private final long[][] boxMasks;
+
+    private final int[] keyShifts;
+    private final int[] keyBits;
+    private final int totalKeyBits;
+    // indexed by bit of a key, the piece whose placement the bit belongs to
+    private final int[] keyBitPieces;
+
+    // Symmetry: placements with the same cells and boxes are the same position, and so are positions that only
+    // swap pieces of identical shape. Indexed by [piece][placement], the first placement of the piece covering the
+    // same cells and boxes.
+    private final int[][] canonical;
+    // indexed by [piece][placement], the canonical placement of the piece's representative covering the same cells
+    private final int[][] toRepresentative;
+    // indexed by [piece][placement of the representative], the canonical placement of the piece covering those cells
+    private final int[][] fromRepresentative;
+    // indexed by piece, the first piece of identical shape and boxes
+    private final int[] representatives;
+    // groups of at least two pieces of identical shape and boxes, in ascending piece order
+    private final int[][] interchangeable;
+    // indexed by [piece][placement], Zobrist key of the cells and boxes covered, shared by placements and pieces
+    // that look the same
+    private final long[][] zobrist;
+    // hash of the board size, cats, piece shapes and placements
+    private final long fingerprint;
+
+    public PlacementTable(int rows, int cols, List<Cat> cats, List<Piece> pieces) {
+        if (rows < 1 || cols < 1 || 4L * rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Board of %dx%d is not supported.", rows, cols));
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.words = wordsFor(cells);
+        this.cats = List.copyOf(cats);
+
+        this.catWords = new long[words];
+        for (Cat cat : cats) {
+            int cell = cell(cat.row(), cat.column());
+            catWords[cell >>> 6] |= 1L << cell;
+        }
+
+        int count = pieces.size();
+        this.variants = new Piece[count][4];
+        this.placedPieces = new Piece[count][];
+        this.squareRows = new int[count][];
+        this.squareCols = new int[count][];
+        this.squareBoxes = new boolean[count][];
+        this.sizes = new int[count];
+        this.origins = new int[count][];
+        this.catSafe = new boolean[count][];
+        this.catSafeBits = new long[count][];
+        this.lookup = new int[count][];
+        this.masks = words == 1 ? new long[count][] : null;
+        this.boxMasks = words == 1 ? new long[count][] : null;
+        this.keyShifts = new int[count];
+        this.keyBits = new int[count];
+
+        int shift = 0;
+        for (int i = 0; i < count; i++) {
+            buildPlacements(i, pieces.get(i));
+            keyBits[i] = Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(origins[i].length - 1));
+            // a placement that would straddle two words of a wide key starts the next word
+            if ((shift & (Long.SIZE - 1)) + keyBits[i] > Long.SIZE) {
+                shift = (shift | (Long.SIZE - 1)) + 1;
+            }
+            keyShifts[i] = shift;
+            shift += keyBits[i];
+        }
+        this.totalKeyBits = shift;
+        this.keyBitPieces = new int[Long.SIZE];
+        for (int i = 0; i < count; i++) {
+            for (int bit = keyShifts[i]; bit < Math.min(Long.SIZE, keyShifts[i] + keyBits[i]); bit++) {
+                keyBitPieces[bit] = i;
+            }
+        }
+        this.maxPlacementWords = Arrays.stream(origins).mapToInt(pieceOrigins -> wordsFor(pieceOrigins.length)).max().orElse(0);
+
+        this.canonical = new int[count][];
+        this.toRepresentative = new int[count][];
+        this.fromRepresentative = new int[count][];
+        this.representatives = new int[count];
+        this.interchangeable = buildSymmetries();
+        this.fingerprint = buildFingerprint();
+        this.zobrist = buildZobristKeys();
+    }
+
+    static int wordsFor(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private void buildPlacements(int index, Piece piece) {
+        int size = piece.getSquares().size();
+        sizes[index] = size;
+        squareRows[index] = new int[4 * size];
+        squareCols[index] = new int[4 * size];
+        squareBoxes[index] = new boolean[4 * size];
+
+        var placed = new ArrayList<Integer>();
+        var seenShapes = new ArrayList<List<Square>>();
+        var pieceLookup = new int[4 * cells];
+        Arrays.fill(pieceLookup, -1);
+
+        for (var variant : piece.getRotatedVariants()) {
+            int rotation = variant.rotation();
+            variants[index][rotation] = variant.withLocation(0, 0);
+            var squares = variant.getSquares();
+            int minRow = 0;
+            int maxRow = 0;
+            int minCol = 0;
+            int maxCol = 0;
+            for (int k = 0; k < size; k++) {
+                var square = squares.get(k);
+                squareRows[index][rotation * size + k] = square.relativeRow();
+                squareCols[index][rotation * size + k] = square.relativeColumn();
+                squareBoxes[index][rotation * size + k] = square.type() == Square.Type.BOX;
+                minRow = Math.min(minRow, square.relativeRow());
+                maxRow = Math.max(maxRow, square.relativeRow());
+                minCol = Math.min(minCol, square.relativeColumn());
+                maxCol = Math.max(maxCol, square.relativeColumn());
+            }
+
+            // a rotation that reproduces an earlier shape (single squares) shares that shape's placements
+            int sameShape = seenShapes.indexOf(squares);
+            seenShapes.add(squares);
+            for (int row = -minRow; row < rows - maxRow; row++) {
+                for (int col = -minCol; col < cols - maxCol; col++) {
+                    int lookupIndex = rotation * cells + cell(row, col);
+                    if (sameShape >= 0) {
+                        int sameRotation = (piece.rotation() + sameShape) % 4;
+                        pieceLookup[lookupIndex] = pieceLookup[sameRotation * cells + cell(row, col)];
+                    } else {
+                        pieceLookup[lookupIndex] = placed.size();
+                        placed.add(lookupIndex);
+                    }
+                }
+            }
+        }
+        if (placed.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Piece %d does not fit on a %dx%d board.", piece.id(), rows, cols));
+        }
+
+        origins[index] = placed.stream().mapToInt(Integer::intValue).toArray();
+        lookup[index] = pieceLookup;
+        catSafe[index] = new boolean[placed.size()];
+        catSafeBits[index] = new long[wordsFor(placed.size())];
+        for (int p = 0; p < placed.size(); p++) {
+            boolean[] safe = {true};
+            forEachSquare(index, p, (cell, box) -> safe[0] &= box || !isCat(cell));
+            catSafe[index][p] = safe[0];
+            if (safe[0]) {
+                catSafeBits[index][p >>> 6] |= 1L << p;
+            }
+        }
+        if (masks != null) {
+            masks[index] = new long[placed.size()];
+            boxMasks[index] = new long[placed.size()];
+            for (int p = 0; p < placed.size(); p++) {
+                int placement = p;
+                forEachSquare(index, p, (cell, box) -> {
+                    masks[index][placement] |= 1L << cell;
+                    if (box) {
+                        boxMasks[index][placement] |= 1L << cell;
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Squares of a rotation moved so that the top left of their bounding box is at (0, 0), in a fixed order.
+     */
+    private record Shape(List<Square> squares) {}
+
+    private Shape shape(int piece, int rotation) {
+        int size = sizes[piece];
+        var squares = new ArrayList<Square>(size);
+        for (int k = rotation * size; k < (rotation + 1) * size; k++) {
+            squares.add(new Square(0, squareRows[piece][k] - cornerRow(piece, rotation),
+                    squareCols[piece][k] - cornerCol(piece, rotation),
+                    squareBoxes[piece][k] ? Square.Type.BOX : Square.Type.NORMAL));
+        }
+        squares.sort(Comparator.comparingInt(Square::relativeRow).thenComparingInt(Square::relativeColumn));
+        return new Shape(squares);
+    }
+
+    private int cornerRow(int piece, int rotation) {
+        int size = sizes[piece];
+        return Arrays.stream(squareRows[piece], rotation * size, (rotation + 1) * size).min().orElseThrow();
+    }
+
+    private int cornerCol(int piece, int rotation) {
+        int size = sizes[piece];
+        return Arrays.stream(squareCols[piece], rotation * size, (rotation + 1) * size).min().orElseThrow();
+    }
+
+    /**
+     * Cell at the top left of the bounding box of the placement.
+     */
+    private int corner(int piece, int placement) {
+        int rotation = origins[piece][placement] / cells;
+        int anchor = origins[piece][placement] % cells;
+        return anchor + cornerRow(piece, rotation) * cols + cornerCol(piece, rotation);
+    }
+
+    /**
+     * Placement of the piece covering the shape with the top left of its bounding box at the given cell, taken from
+     * the first rotation in placement order that has the shape, so the lowest such placement index.
+     */
+    private int placementCovering(int piece, Shape[] shapes, int[] rotationOrder, Shape shape, int corner) {
+        for (int rotation : rotationOrder) {
+            if (shapes[rotation].equals(shape)) {
+                int anchor = corner - cornerRow(piece, rotation) * cols - cornerCol(piece, rotation);
+                return lookup[piece][rotation * cells + anchor];
+            }
+        }
+        return -1;
+    }
+
+    private int[][] buildSymmetries() {
+        int count = origins.length;
+        var shapes = new Shape[count][4];
+        var shapeSets = new ArrayList<Set<Shape>>(count);
+        var rotationOrders = new int[count][];
+        for (int i = 0; i < count; i++) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                shapes[i][rotation] = shape(i, rotation);
+            }
+            shapeSets.add(new HashSet<>(Arrays.asList(shapes[i])));
+            int first = origins[i][0] / cells;
+            rotationOrders[i] = IntStream.range(0, 4).map(k -> (first + k) % 4).toArray();
+        }
+
+        for (int i = 0; i < count; i++) {
+            canonical[i] = new int[origins[i].length];
+            for (int p = 0; p < origins[i].length; p++) {
+                var shape = shapes[i][origins[i][p] / cells];
+                canonical[i][p] = placementCovering(i, shapes[i], rotationOrders[i], shape, corner(i, p));
+            }
+
+            representatives[i] = i;
+            for (int r = 0; r < i; r++) {
+                if (representatives[r] == r && shapeSets.get(r).equals(shapeSets.get(i))) {
+                    representatives[i] = r;
+                    break;
+                }
+            }
+
+            int representative = representatives[i];
+            toRepresentative[i] = new int[origins[i].length];
+            for (int p = 0; p < origins[i].length; p++) {
+                var shape = shapes[i][origins[i][p] / cells];
+                toRepresentative[i][p] = placementCovering(representative, shapes[representative],
+                        rotationOrders[representative], shape, corner(i, p));
+            }
+            fromRepresentative[i] = new int[origins[representative].length];
+            for (int q = 0; q < origins[representative].length; q++) {
+                var shape = shapes[representative][origins[representative][q] / cells];
+                fromRepresentative[i][q] = placementCovering(i, shapes[i], rotationOrders[i], shape, corner(representative, q));
+            }
+        }
+
+        var groups = new ArrayList<int[]>();
+        for (int r = 0; r < count; r++) {
+            int representative = r;
+            var members = IntStream.range(0, count).filter(i -> representatives[i] == representative).toArray();
+            if (members.length > 1) {
+                groups.add(members);
+            }
+        }
+        return groups.toArray(new int[0][]);
+    }
+
+    /**
+     * 64-bit hash of everything the keys and moves of the puzzle depend on: the board size, the cats, and per piece
+     * the squares of every rotation, its placements in order and where its placement sits in a key.
+     */
+    private long buildFingerprint() {
+        long res = mix(mix(0, rows), cols);
+        for (long word : catWords) {
+            res = mix(res, word);
+        }
+        res = mix(res, origins.length);
+        for (int i = 0; i < origins.length; i++) {
+            res = mix(mix(mix(res, sizes[i]), keyShifts[i]), origins[i].length);
+            for (int k = 0; k < squareRows[i].length; k++) {
+                res = mix(res, (long) squareRows[i][k] << 33 ^ (long) squareCols[i][k] << 1 ^ (squareBoxes[i][k] ? 1 : 0));
+            }
+            for (int origin : origins[i]) {
+                res = mix(res, origin);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Folds the value into the hash with the 64-bit finaliser of MurmurHash3.
+     */
+    private static long mix(long hash, long value) {
+        long res = (hash ^ value) * 0xff51afd7ed558ccdL;
+        res ^= res >>> 33;
+        res *= 0xc4ceb9fe1a85ec53L;
+        return res ^ res >>> 33;
+    }
+
+    private long[][] buildZobristKeys() {
+        int count = origins.length;
+        // seeded by the puzzle, so the same puzzle always hashes the same way
+        var random = new SplittableRandom(fingerprint);
+
+        var representativeKeys = new long[count][];
+        var res = new long[count][];
+        for (int i = 0; i < count; i++) {
+            int representative = representatives[i];
+            if (representative == i) {
+                representativeKeys[i] = random.longs(origins[i].length).toArray();
+            }
+            res[i] = new long[origins[i].length];
+            for (int p = 0; p < res[i].length; p++) {
+                res[i][p] = representativeKeys[representative][toRepresentative[i][p]];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Calls the consumer for every placement that moves a piece to a free, cat-safe spot, given the current
+     * placement of every piece and the cells they occupy. Only for boards of at most 64 cells.
+     */
+    public void forEachMove(int[] placements, long occupied, MoveConsumer consumer) {
+        forEachMove(placements, occupied, false, -1, 0, consumer);
+    }
+
+    /**
+     * Like {@link #forEachMove(int[], long, MoveConsumer)}, but skips placements that cover the same cells and boxes
+     * as an earlier placement of the piece, including moves that leave the piece looking the same.
+     */
+    public void forEachDistinctMove(int[] placements, long occupied, MoveConsumer consumer) {
+        forEachMove(placements, occupied, true, -1, 0, consumer);
+    }
+
+    /**
+     * Like {@link #forEachMove(int[], long, MoveConsumer)}, but also skips the moves that commute with the move that
+     * led to this position and belong to a piece of an earlier shape than the moved piece. Two moves commute when
+     * neither touches the cells the other one leaves or enters, so making them in the other order reaches the same
+     * position in as many moves; only the order with the earlier shape first is generated. Identical pieces are never
+     * ordered, so the order survives swapping them.
+     * <p>
+     * In a breadth-first search that expands every position from one of its parents, every position is still found
+     * at its shortest distance: a skipped move can always be made from the position reached by making it one move
+     * earlier, and every step back in that argument raises the shape that is needed, so it ends.
+     *
+     * @param movedPiece piece moved last, or -1 at the start
+     * @param movedCells bitboard of the cells the moved piece left and entered
+     */
+    public void forEachMove(int[] placements, long occupied, int movedPiece, long movedCells, MoveConsumer consumer) {
+        forEachMove(placements, occupied, false, movedPiece, movedCells, consumer);
+    }
+
+    /**
+     * Both {@link #forEachDistinctMove(int[], long, MoveConsumer)} and
+     * {@link #forEachMove(int[], long, int, long, MoveConsumer)}.
+     */
+    public void forEachDistinctMove(int[] placements, long occupied, int movedPiece, long movedCells, MoveConsumer consumer) {
+        forEachMove(placements, occupied, true, movedPiece, movedCells, consumer);
+    }
+
+    private void forEachMove(int[] placements, long occupied, boolean distinct, int movedPiece, long movedCells,
+                             MoveConsumer consumer) {
+        var legal = new long[maxPlacementWords];
+        int movedShape = movedPiece < 0 ? -1 : representatives[movedPiece];
+        for (int piece = 0; piece < placements.length; piece++) {
+            int current = distinct ? canonical[piece][placements[piece]] : placements[piece];
+            long[] pieceMasks = masks[piece];
+            legalPlacements(piece, occupied & ~pieceMasks[current], legal);
+            // a piece of an earlier shape that keeps clear of the last move may only make moves that touch it
+            boolean ordered = representatives[piece] < movedShape && (pieceMasks[current] & movedCells) == 0;
+            int[] pieceCanonical = canonical[piece];
+            for (int w = 0; w < catSafeBits[piece].length; w++) {
+                for (long word = legal[w]; word != 0; word &= word - 1) {
+                    int p = w << 6 | Long.numberOfTrailingZeros(word);
+                    if (p != current && (!distinct || pieceCanonical[p] == p)
+                            && (!ordered || (pieceMasks[p] & movedCells) != 0)) {
+                        consumer.accept(piece, p);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The piece whose placement differs between the keys of two positions one move apart.
+     */
+    public int movedPiece(long key, long previous) {
+        return keyBitPieces[Long.numberOfTrailingZeros(key ^ previous)];
+    }
+
+    /**
+     * Writes the bitset of the cat-safe placements of the piece that miss the given cells to the first words of the
+     * array, in a single batch. Only for boards of at most 64 cells.
+     *
+     * @param others bitboard of the cells taken by the other pieces
+     */
+    void legalPlacements(int piece, long others, long[] into) {
+        PlacementFilter.DEFAULT.legal(masks[piece], others, catSafeBits[piece], into);
+    }
+
+    /**
+     * Key shared by every position that looks the same as the given one: each piece takes its first placement
+     * covering the same cells and boxes, and pieces of identical shape are ordered by where they are.
+     */
+    public long canonicalKey(long key) {
+        for (int piece = 0; piece < canonical.length; piece++) {
+            int placement = placement(key, piece);
+            if (canonical[piece][placement] != placement) {
+                key = withPlacement(key, piece, canonical[piece][placement]);
+            }
+        }
+        for (int[] group : interchangeable) {
+            // insertion sort of the group on the placements as numbered by the representative
+            for (int a = 1; a < group.length; a++) {
+                for (int b = a; b > 0; b--) {
+                    int lower = group[b - 1];
+                    int upper = group[b];
+                    int lowerPlacement = toRepresentative[lower][placement(key, lower)];
+                    int upperPlacement = toRepresentative[upper][placement(key, upper)];
+                    if (lowerPlacement <= upperPlacement) {
+                        break;
+                    }
+                    key = withPlacement(key, lower, fromRepresentative[lower][upperPlacement]);
+                    key = withPlacement(key, upper, fromRepresentative[upper][lowerPlacement]);
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Turns the wide key in the {@link #keyWords()} words of the array from the offset into its canonical key, as
+     * {@link #canonicalKey(long)} does for a single word.
+     */
+    public void canonicalKey(long[] key, int offset) {
+        for (int piece = 0; piece < canonical.length; piece++) {
+            int placement = placement(key, offset, piece);
+            if (canonical[piece][placement] != placement) {
+                setPlacement(key, offset, piece, canonical[piece][placement]);
+            }
+        }
+        for (int[] group : interchangeable) {
+            for (int a = 1; a < group.length; a++) {
+                for (int b = a; b > 0; b--) {
+                    int lower = group[b - 1];
+                    int upper = group[b];
+                    int lowerPlacement = toRepresentative[lower][placement(key, offset, lower)];
+                    int upperPlacement = toRepresentative[upper][placement(key, offset, upper)];
+                    if (lowerPlacement <= upperPlacement) {
+                        break;
+                    }
+                    setPlacement(key, offset, lower, fromRepresentative[lower][upperPlacement]);
+                    setPlacement(key, offset, upper, fromRepresentative[upper][lowerPlacement]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Placement index of the given piece, or -1 if it is not a placement of the piece at that index.
+     */
+    public int placementOf(int pieceIndex, Piece piece) {
+        if (piece.id() != pieceId(pieceIndex)) {
+            return -1;
+        }
+        int placement = placementOf(pieceIndex, piece.rotation(), piece.row(), piece.col());
+        if (placement < 0 || !variants[pieceIndex][piece.rotation()].getSquares().equals(piece.getSquares())) {
+            return -1;
+        }
+        return placement;
+    }
+
+    /**
+     * Placement index of the piece at that index with the given rotation and anchor cell, or -1 if there is none.
+     */
+    public int placementOf(int pieceIndex, int rotation, int row, int col) {
+        if (rotation < 0 || rotation > 3 || row < 0 || row >= rows || col < 0 || col >= cols) {
+            return -1;
+        }
+        return lookup[pieceIndex][rotation * cells + cell(row, col)];
+    }
+
+    /**
+     * Index of the piece with the given id, or -1 if the puzzle has no such piece.
+     */
+    public int indexOf(int pieceId) {
+        for (int i = 0; i < variants.length; i++) {
+            if (pieceId(i) == pieceId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether cell sets fit in a single word and positions in a single {@code long} key, as the key-based solvers
+     * require.
+     */
+    public boolean isCompact() {
+        return words == 1 && totalKeyBits <= Long.SIZE;
+    }
+
+    /**
+     * Packs a placement index per piece into a single exact key.
+     */
+    public long encode(int[] placements) {
+        if (totalKeyBits > Long.SIZE) {
+            throw new IllegalStateException(String.format("%d pieces need %d bits, which does not fit in a 64 bit key.",
+                    placements.length, totalKeyBits));
+        }
+        long key = 0;
+        for (int i = 0; i < placements.length; i++) {
+            key |= (long) placements[i] << keyShifts[i];
+        }
+        return key;
+    }
+
+    /**
+     * Unpacks a key produced by {@link #encode(int[])} into the given placement array.
+     */
+    public void decode(long key, int[] placements) {
+        for (int i = 0; i < placements.length; i++) {
+            placements[i] = placement(key, i);
+        }
+    }
+
+    public int placement(long key, int piece) {
+        return (int) ((key >>> keyShifts[piece]) & ((1L << keyBits[piece]) - 1));
+    }
+
+    /**
+     * Number of {@code long} words of a wide key, which any puzzle has.
+     */
+    public int keyWords() {
+        return Math.max(1, wordsFor(totalKeyBits));
+    }
+
+    /**
+     * Packs a placement index per piece into the {@link #keyWords()} words of the array from the offset. No
+     * placement straddles two words, so the wide key of a compact puzzle is its {@code long} key.
+     */
+    public void encode(int[] placements, long[] into, int offset) {
+        Arrays.fill(into, offset, offset + keyWords(), 0);
+        for (int i = 0; i < placements.length; i++) {
+            into[offset + (keyShifts[i] >>> 6)] |= (long) placements[i] << keyShifts[i];
+        }
+    }
+
+    /**
+     * Unpacks a wide key produced by {@link #encode(int[], long[], int)} into the given placement array.
+     */
+    public void decode(long[] key, int offset, int[] placements) {
+        for (int i = 0; i < placements.length; i++) {
+            placements[i] = placement(key, offset, i);
+        }
+    }
+
+    public int placement(long[] key, int offset, int piece) {
+        return (int) ((key[offset + (keyShifts[piece] >>> 6)] >>> keyShifts[piece]) & ((1L << keyBits[piece]) - 1));
+    }
+
+    /**
+     * Changes the placement of one piece in a wide key.
+     */
+    public void setPlacement(long[] key, int offset, int piece, int placement) {
+        int word = offset + (keyShifts[piece] >>> 6);
+        long pieceMask = ((1L << keyBits[piece]) - 1) << keyShifts[piece];
+        key[word] = (key[word] & ~pieceMask) | ((long) placement << keyShifts[piece]);
+    }
+
+    /**
+     * Bitboard of all cells covered when the pieces are at the given placements. Only for boards of at most 64
+     * cells.
+     */
+    public long occupancy(int[] placements) {
+        requireBitboard();
+        long occupied = 0;
+        for (int i = 0; i < placements.length; i++) {
+            occupied |= masks[i][placements[i]];
+        }
+        return occupied;
+    }
+
+    /**
+     * Cell set of all cells covered when the pieces are at the given placements.
+     */
+    public long[] occupancyWords(int[] placements) {
+        var res = new long[words];
+        for (int i = 0; i < placements.length; i++) {
+            occupy(res, i, placements[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Adds the cells of the placement to the cell set.
+     */
+    public void occupy(long[] occupied, int piece, int placement) {
+        if (masks != null) {
+            occupied[0] |= masks[piece][placement];
+            return;
+        }
+        int origin = origins[piece][placement];
+        int size = sizes[piece];
+        int first = origin / cells * size;
+        int anchor = origin % cells;
+        for (int k = first; k < first + size; k++) {
+            int cell = anchor + squareRows[piece][k] * cols + squareCols[piece][k];
+            occupied[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Removes the cells of the placement from the cell set.
+     */
+    public void vacate(long[] occupied, int piece, int placement) {
+        if (masks != null) {
+            occupied[0] &= ~masks[piece][placement];
+            return;
+        }
+        int origin = origins[piece][placement];
+        int size = sizes[piece];
+        int first = origin / cells * size;
+        int anchor = origin % cells;
+        for (int k = first; k < first + size; k++) {
+            int cell = anchor + squareRows[piece][k] * cols + squareCols[piece][k];
+            occupied[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    /**
+     * Whether none of the cells of the placement are in the cell set, which should leave out the piece itself.
+     */
+    public boolean fits(int piece, int placement, long[] others) {
+        if (masks != null) {
+            return (masks[piece][placement] & others[0]) == 0;
+        }
+        int origin = origins[piece][placement];
+        int size = sizes[piece];
+        int first = origin / cells * size;
+        int anchor = origin % cells;
+        for (int k = first; k < first + size; k++) {
+            int cell = anchor + squareRows[piece][k] * cols + squareCols[piece][k];
+            if ((others[cell >>> 6] & 1L << cell) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calls the consumer for every square of the placement with the cell it covers.
+     */
+    public void forEachSquare(int piece, int placement, SquareConsumer consumer) {
+        int origin = origins[piece][placement];
+        int size = sizes[piece];
+        int first = origin / cells * size;
+        int anchor = origin % cells;
+        for (int k = first; k < first + size; k++) {
+            consumer.accept(anchor + squareRows[piece][k] * cols + squareCols[piece][k], squareBoxes[piece][k]);
+        }
+    }
+
+    /**
+     * Writes the cells covered by the placement to the array, which must hold the size of the piece, and returns
+     * their number.
+     */
+    public int cellsOf(int piece, int placement, int[] into) {
+        int origin = origins[piece][placement];
+        int size = sizes[piece];
+        int first = origin / cells * size;
+        int anchor = origin % cells;
+        for (int k = 0; k < size; k++) {
+            into[k] = anchor + squareRows[piece][first + k] * cols + squareCols[piece][first + k];
+        }
+        return size;
+    }
+
+    /**
+     * Writes the placements of the piece covering the cell to the array, which must hold four times the size of
+     * the piece, and returns their number. A placement may be listed more than once.
+     */
+    public int placementsCovering(int piece, int cell, int[] into) {
+        int row = cell / cols;
+        int col = cell % cols;
+        int size = sizes[piece];
+        int count = 0;
+        for (int k = 0; k < 4 * size; k++) {
+            int anchorRow = row - squareRows[piece][k];
+            int anchorCol = col - squareCols[piece][k];
+            if (anchorRow >= 0 && anchorRow < rows && anchorCol >= 0 && anchorCol < cols) {
+                int placement = lookup[piece][k / size * cells + cell(anchorRow, anchorCol)];
+                if (placement >= 0) {
+                    into[count++] = placement;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int pieceSize(int piece) {
+        return sizes[piece];
+    }
+
+    public boolean isFinished(long occupied) {
+        return (catMask() & ~occupied) == 0;
+    }
+
+    public boolean isFinished(long[] occupied) {
+        for (int w = 0; w < words; w++) {
+            if ((catWords[w] & ~occupied[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of cats outside the cell set.
+     */
+    public int uncoveredCats(long[] occupied) {
+        int res = 0;
+        for (int w = 0; w < words; w++) {
+            res += Long.bitCount(catWords[w] & ~occupied[w]);
+        }
+        return res;
+    }
+
+    /**
+     * Key of the position that differs from the given one only in the placement of one piece.
+     */
+    public long withPlacement(long key, int piece, int placement) {
+        long pieceMask = ((1L << keyBits[piece]) - 1) << keyShifts[piece];
+        return (key & ~pieceMask) | ((long) placement << keyShifts[piece]);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Number of {@code long} words in a cell set.
+     */
+    public int words() {
+        return words;
+    }
+
+    public List<Cat> cats() {
+        return cats;
+    }
+
+    public boolean isCat(int cell) {
+        return (catWords[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Bitboard of the cats. Only for boards of at most 64 cells.
+     */
+    public long catMask() {
+        requireBitboard();
+        return catWords[0];
+    }
+
+    public int pieceCount() {
+        return origins.length;
+    }
+
+    public int placementCount(int piece) {
+        return origins[piece].length;
+    }
+
+    public int pieceId(int piece) {
+        return variants[piece][0].id();
+    }
+
+    public Piece piece(int piece, int placement) {
+        var placed = placedPieces[piece];
+        if (placed == null) {
+            placed = new Piece[origins[piece].length];
+            placedPieces[piece] = placed;
+        }
+        var res = placed[placement];
+        if (res == null) {
+            // pieces are immutable, so a race only creates an equal piece twice
+            int origin = origins[piece][placement];
+            int anchor = origin % cells;
+            res = variants[piece][origin / cells].withLocation(anchor / cols, anchor % cols);
+            placed[placement] = res;
+        }
+        return res;
+    }
+
+    /**
+     * Bitboard of the cells covered by the placement. Only for boards of at most 64 cells.
+     */
+    public long mask(int piece, int placement) {
+        return masks[piece][placement];
+    }
+
+    /**
+     * Bitboard of the cells covered by box squares of the placement. Only for boards of at most 64 cells.
+     */
+    public long boxMask(int piece, int placement) {
+        return boxMasks[piece][placement];
+    }
+
+    public boolean isCatSafe(int piece, int placement) {
+        return catSafe[piece][placement];
+    }
+
+    /**
+     * Random key of the placement. Placements covering the same cells and boxes, also of identical pieces, share
+     * their key, so a position's hash is the XOR of its placements' keys whichever symmetric variant it is in.
+     */
+    public long zobrist(int piece, int placement) {
+        return zobrist[piece][placement];
+    }
+
+    /**
+     * Hash of the board size, cats and piece shapes in piece order. Tables of the same puzzle share it, so keys of
+     * one can be used with the other.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public long hash(int[] placements) {
+        long res = 0;
+        for (int i = 0; i < placements.length; i++) {
+            res ^= zobrist[i][placements[i]];
+        }
+        return res;
+    }
+
+    /**
+     * Placement of the other piece covering the same cells and boxes, for two pieces of identical shape and boxes.
+     */
+    int equivalentPlacement(int piece, int placement, int other) {
+        return fromRepresentative[other][toRepresentative[piece][placement]];
+    }
+
+    /**
+     * For keys of two positions that look the same, which piece of the other position covers what each piece of
+     * the first one covers.
+     */
+    int[] matchPieces(long key, long other) {
+        var res = new int[origins.length];
+        var matched = new boolean[origins.length];
+        for (int i = 0; i < res.length; i++) {
+            int covered = toRepresentative[i][placement(key, i)];
+            res[i] = -1;
+            for (int j = 0; j < res.length && res[i] < 0; j++) {
+                if (!matched[j] && representatives[j] == representatives[i]
+                        && toRepresentative[j][placement(other, j)] == covered) {
+                    matched[j] = true;
+                    res[i] = j;
+                }
+            }
+            if (res[i] < 0) {
+                throw new IllegalArgumentException("Positions do not look the same.");
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Replays the moves of a path of keys from a position that looks the same as its first one, each move made by
+     * the piece covering what the moved piece covers. The result starts with the given key.
+     */
+    long[] carryOver(long key, long[] path) {
+        var pieceOf = new int[origins.length];
+        var matched = matchPieces(key, path[0]);
+        for (int i = 0; i < matched.length; i++) {
+            pieceOf[matched[i]] = i;
+        }
+        var res = new long[path.length];
+        res[0] = key;
+        for (int step = 1; step < path.length; step++) {
+            res[step] = res[step - 1];
+            for (int moved = 0; moved < pieceOf.length; moved++) {
+                int placement = placement(path[step], moved);
+                if (placement != placement(path[step - 1], moved)) {
+                    int piece = pieceOf[moved];
+                    res[step] = withPlacement(res[step], piece, equivalentPlacement(moved, placement, piece));
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * First placement of the piece that covers the same cells and boxes as the given one.
+     */
+    public int canonicalPlacement(int piece, int placement) {
+        return canonical[piece][placement];
+    }
+
+    int cell(int row, int col) {
+        return row * cols + col;
+    }
+
+    private void requireBitboard() {
+        if (masks == null) {
+            throw new IllegalStateException(String.format("Board of %dx%d does not fit in a %d cell bitboard.", rows, cols, Long.SIZE));
+        }
+    }
+}
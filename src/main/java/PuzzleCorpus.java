@@ -0,0 +1,322 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binary file of puzzles and their optimal solutions, read through memory-mapped windows so a corpus of any size is
+ * streamed without parsing text or holding more than one window. Every record is read in place through a reused
+ * {@link Entry}, which only builds a {@link Board} when asked to.
+ * <p>
+ * Layout: header {@code int magic, int version, long count}, then per record {@code int length} (of the rest of the
+ * record), {@code short rows, short cols, long[(rows * cols + 63) / 64] catMask} with the cats as a cell set, {@code
+ * int pieceCount}, per piece {@code int id, byte rotation, short row, short col, short squareCount} and per square of
+ * its unrotated shape {@code short relativeRow, short relativeColumn, byte box}, and last {@code int moveCount}
+ * ({@link #UNSOLVABLE} or {@link #UNKNOWN} if there is no solution) followed per move by {@code int pieceId,
+ * byte rotation, short row, short column}.
+ */
+public final class PuzzleCorpus implements AutoCloseable {
+
+    public static final int UNSOLVABLE = -1;
+    public static final int UNKNOWN = -2;
+
+    private static final int MAGIC = 0x434f5250; // "CORP"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int MOVE_SIZE = Integer.BYTES + Byte.BYTES + 2 * Short.BYTES;
+    private static final int SQUARE_SIZE = 2 * Short.BYTES + Byte.BYTES;
+    // bytes per mapped window, records never span two
+    private static final long DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long count;
+    private final long windowSize;
+
+    private PuzzleCorpus(Path file, long windowSize) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.windowSize = windowSize;
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException(String.format("File '%s' is not a puzzle corpus of version %d.", file, VERSION));
+        }
+        this.count = header.getLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Opens a corpus written by a {@link Writer}.
+     *
+     * @throws IOException if the file is not a puzzle corpus
+     */
+    public static PuzzleCorpus open(Path file) throws IOException {
+        return new PuzzleCorpus(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    static PuzzleCorpus open(Path file, long windowSize) throws IOException {
+        return new PuzzleCorpus(file, windowSize);
+    }
+
+    /**
+     * Starts a new corpus in the file, replacing what was there. The count in the header is only written on close.
+     */
+    public static Writer create(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Passes every record in order to the consumer. The entry is reused for the next record, so it must not be kept
+     * after the consumer returns.
+     *
+     * @throws IOException if the file ends in the middle of a record
+     */
+    public void forEach(Consumer<Entry> consumer) throws IOException {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        long windowStart = position;
+        MappedByteBuffer window = null;
+        var entry = new Entry();
+        for (long i = 0; i < count; i++) {
+            if (window == null || position + Integer.BYTES > windowStart + window.capacity()) {
+                window = map(position, size, Integer.BYTES);
+                windowStart = position;
+            }
+            int length = window.getInt((int) (position - windowStart));
+            long recordSize = Integer.BYTES + (long) length;
+            if (length < 0 || position + recordSize > size) {
+                throw new IOException(String.format("Record %d of '%s' is cut off.", i, file));
+            }
+            if (position + recordSize > windowStart + window.capacity()) {
+                window = map(position, size, recordSize);
+                windowStart = position;
+            }
+            entry.reset(window, (int) (position - windowStart) + Integer.BYTES);
+            consumer.accept(entry);
+            position += recordSize;
+        }
+    }
+
+    private MappedByteBuffer map(long position, long size, long least) throws IOException {
+        long length = Math.min(size - position, Math.max(windowSize, least));
+        if (length < least) {
+            throw new IOException(String.format("Corpus '%s' is cut off at byte %d.", file, size));
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Record at byte %d of '%s' does not fit in a mapping.", position, file));
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * View of the record the reader is at. Everything is read straight from the mapping.
+     */
+    public static final class Entry {
+        private ByteBuffer buffer;
+        private int offset;
+        private int piecesOffset;
+        private int movesOffset;
+
+        private Entry() {
+        }
+
+        private void reset(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.piecesOffset = offset + 2 * Short.BYTES + words(rows() * cols()) * Long.BYTES;
+            int position = piecesOffset + Integer.BYTES;
+            for (int i = pieceCount(); i > 0; i--) {
+                position += Integer.BYTES + Byte.BYTES + 2 * Short.BYTES;
+                position += Short.BYTES + buffer.getShort(position) * SQUARE_SIZE;
+            }
+            this.movesOffset = position;
+        }
+
+        public int rows() {
+            return buffer.getShort(offset);
+        }
+
+        public int cols() {
+            return buffer.getShort(offset + Short.BYTES);
+        }
+
+        public boolean isCat(int row, int col) {
+            int cell = row * cols() + col;
+            return (buffer.getLong(offset + 2 * Short.BYTES + (cell >>> 6) * Long.BYTES) & 1L << cell) != 0;
+        }
+
+        public int pieceCount() {
+            return buffer.getInt(piecesOffset);
+        }
+
+        /**
+         * Number of moves of the optimal solution, {@link #UNSOLVABLE} or {@link #UNKNOWN}.
+         */
+        public int optimalMoves() {
+            return buffer.getInt(movesOffset);
+        }
+
+        /**
+         * Builds the board of the record.
+         */
+        public Board board() {
+            var cats = new ArrayList<Cat>();
+            for (int row = 0; row < rows(); row++) {
+                for (int col = 0; col < cols(); col++) {
+                    if (isCat(row, col)) {
+                        cats.add(new Cat(row, col));
+                    }
+                }
+            }
+            var pieces = new ArrayList<Piece>(pieceCount());
+            int position = piecesOffset + Integer.BYTES;
+            for (int i = pieceCount(); i > 0; i--) {
+                int id = buffer.getInt(position);
+                int rotation = buffer.get(position + Integer.BYTES);
+                position += Integer.BYTES + Byte.BYTES;
+                int row = buffer.getShort(position);
+                int col = buffer.getShort(position + Short.BYTES);
+                int squareCount = buffer.getShort(position + 2 * Short.BYTES);
+                position += 3 * Short.BYTES;
+                var squares = new ArrayList<Square>(squareCount);
+                for (int j = 0; j < squareCount; j++, position += SQUARE_SIZE) {
+                    var type = buffer.get(position + 2 * Short.BYTES) != 0 ? Square.Type.BOX : Square.Type.NORMAL;
+                    squares.add(new Square(id, buffer.getShort(position), buffer.getShort(position + Short.BYTES), type));
+                }
+                var piece = new Piece(id, squares);
+                for (int r = 0; r < rotation; r++) {
+                    piece = piece.rotateCounterClockwise();
+                }
+                pieces.add(piece.withLocation(row, col));
+            }
+            return Board.of(rows(), cols(), pieces, cats);
+        }
+
+        /**
+         * Optimal solution of the board of the record, or null if it has none or none was written.
+         */
+        public Solution solution() {
+            int moveCount = optimalMoves();
+            if (moveCount < 0) {
+                return null;
+            }
+            var moves = new ArrayList<Move>(moveCount);
+            for (int i = 0, position = movesOffset + Integer.BYTES; i < moveCount; i++, position += MOVE_SIZE) {
+                moves.add(new Move(buffer.getInt(position), buffer.get(position + Integer.BYTES),
+                        buffer.getShort(position + Integer.BYTES + Byte.BYTES),
+                        buffer.getShort(position + Integer.BYTES + Byte.BYTES + Short.BYTES)));
+            }
+            return new Solution(board(), moves);
+        }
+    }
+
+    /**
+     * Appends records to a new corpus.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        private long count;
+
+        private Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            var header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+            channel.write(header);
+        }
+
+        /**
+         * Adds a puzzle whose solution is not known.
+         */
+        public void add(Board board) throws IOException {
+            write(board, UNKNOWN, List.of());
+        }
+
+        /**
+         * Adds a puzzle with its optimal solution, or null if it cannot be solved.
+         */
+        public void add(Board board, Solution solution) throws IOException {
+            if (solution == null) {
+                write(board, UNSOLVABLE, List.of());
+            } else {
+                write(board, solution.movesMade(), solution.moves());
+            }
+        }
+
+        private void write(Board board, int moveCount, List<Move> moves) throws IOException {
+            if (board.rows() > Short.MAX_VALUE || board.cols() > Short.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format("Board of %dx%d is too large for a corpus.", board.rows(), board.cols()));
+            }
+            var pieces = board.pieces();
+            var mask = new long[words(board.rows() * board.cols())];
+            for (var cat : board.cats()) {
+                int cell = cat.row() * board.cols() + cat.column();
+                mask[cell >>> 6] |= 1L << cell;
+            }
+
+            int size = 2 * Short.BYTES + mask.length * Long.BYTES + Integer.BYTES + Integer.BYTES + moves.size() * MOVE_SIZE;
+            for (var piece : pieces) {
+                size += Integer.BYTES + Byte.BYTES + 3 * Short.BYTES + piece.getSquares().size() * SQUARE_SIZE;
+            }
+            if (buffer.capacity() < Integer.BYTES + size) {
+                buffer = ByteBuffer.allocate(Integer.highestOneBit(Integer.BYTES + size) << 1);
+            }
+            buffer.clear().putInt(size).putShort((short) board.rows()).putShort((short) board.cols());
+            for (long word : mask) {
+                buffer.putLong(word);
+            }
+            buffer.putInt(pieces.size());
+            for (var piece : pieces) {
+                // the shape is stored unrotated, so the rotations of moves keep counting from the same shape
+                var shape = piece;
+                for (int r = piece.rotation(); r % 4 != 0; r++) {
+                    shape = shape.rotateCounterClockwise();
+                }
+                buffer.putInt(piece.id()).put((byte) piece.rotation()).putShort((short) piece.row()).putShort((short) piece.col());
+                buffer.putShort((short) shape.getSquares().size());
+                for (var square : shape.getSquares()) {
+                    buffer.putShort((short) square.relativeRow()).putShort((short) square.relativeColumn())
+                            .put((byte) (square.type() == Square.Type.BOX ? 1 : 0));
+                }
+            }
+            buffer.putInt(moveCount);
+            for (var move : moves) {
+                buffer.putInt(move.pieceId()).put((byte) move.rotation()).putShort((short) move.row()).putShort((short) move.column());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            count++;
+        }
+
+        /**
+         * Writes the count into the header and closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), COUNT_OFFSET);
+            }
+        }
+    }
+
+    private static int words(int cells) {
+        return (cells + Long.SIZE - 1) / Long.SIZE;
+    }
+}
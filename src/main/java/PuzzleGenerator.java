@@ -0,0 +1,399 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Generates puzzles by placing pieces and cats at random and solving the candidates, keeping those whose optimal
+ * solution has between {@code minMoves} and {@code maxMoves} moves.
+ * <p>
+ * Candidates come in families that share a set of cats and so are positions of the same puzzle: one
+ * {@link PlacementTable} and one {@link CatCoverageHeuristic} serve the whole family, and a candidate is only an array
+ * of placements. Many candidates are turned down before any search: sets of cats that no placement of the pieces can
+ * finish are drawn again, and candidates that look like one seen before in the family or whose cat coverage bound already
+ * needs too many moves are skipped. Puzzles of a family are kept apart: a candidate met on the way to solving a kept
+ * puzzle is a duplicate, and so is one whose solution runs through the start of a kept puzzle. The first candidate left builds the {@link DistanceTable} of the puzzle, after
+ * which every candidate of the family is a lookup. Only when the puzzle has more positions than the state limit of
+ * the budget is each candidate solved on its own within the budget instead.
+ * <p>
+ * Families run in parallel on a fixed pool of platform threads, each from its own seed, so the puzzles found only
+ * depend on the seed and not on the number of threads.
+ */
+public class PuzzleGenerator {
+
+    /**
+     * Board size, piece shapes and number of cats of the puzzles to generate. Where the pieces are does not matter.
+     */
+    public record Spec(int rows, int cols, List<Piece> pieces, int cats) {
+
+        public Spec {
+            pieces = List.copyOf(pieces);
+            if (cats < 1 || cats > rows * cols) {
+                throw new IllegalArgumentException(String.format("Cannot put %d cats on a %dx%d board.", cats, rows, cols));
+            }
+            var ids = new HashSet<Integer>();
+            for (var piece : pieces) {
+                if (!ids.add(piece.id())) {
+                    throw new IllegalArgumentException(String.format("Piece id %d is used more than once.", piece.id()));
+                }
+            }
+        }
+
+        /**
+         * Puzzles of the size, pieces and number of cats of the board.
+         */
+        public static Spec like(Board board) {
+            return new Spec(board.rows(), board.cols(), board.pieces(), board.cats().size());
+        }
+    }
+
+    /**
+     * Candidates looked at and why the ones that were not kept were turned down.
+     *
+     * @param unplaceable candidates whose pieces did not all fit, including every candidate of a family that found no
+     *                    set of cats with a finished position
+     * @param duplicates  candidates that look like an earlier one of their family, lie on the solution of a kept one
+     *                    or whose solution runs through the start of a kept one
+     * @param unsolvable  candidates without a solution
+     * @param trivial     candidates solved in fewer than the minimum number of moves
+     * @param tooDeep     candidates needing more than the maximum number of moves
+     * @param overBudget  candidates whose search ran out of budget before deciding
+     */
+    public record Stats(long candidates, long accepted, long unplaceable, long duplicates, long unsolvable,
+                        long trivial, long tooDeep, long overBudget, Duration elapsed, int threads) {
+
+        public double candidatesPerSecondPerCore() {
+            return candidates / (elapsed.toNanos() / 1e9) / threads;
+        }
+    }
+
+    /**
+     * Puzzles kept, as their optimal solutions keyed by their number of moves.
+     */
+    public record Result(SortedMap<Integer, List<Solution>> buckets, Stats stats) {}
+
+    private static final int CANDIDATES_PER_FAMILY = 256;
+    private static final int PLACEMENT_ATTEMPTS = 32;
+    private static final int PACKING_ATTEMPTS = 64;
+    // cat sets drawn for a family until the puzzle has a finished position
+    private static final int CAT_ATTEMPTS = 64;
+    private static final int DEFAULT_MAX_STATES = 1 << 20;
+
+    private final int threads;
+    private final int minMoves;
+    private final int maxMoves;
+    private final SearchBudget budget;
+    private final Solver solver = new Solver();
+
+    public PuzzleGenerator(int threads, int minMoves, int maxMoves) {
+        this(threads, minMoves, maxMoves, SearchBudget.UNLIMITED.withMaxStates(DEFAULT_MAX_STATES));
+    }
+
+    /**
+     * @param budget of each search, which turns down the candidates it cannot decide
+     */
+    public PuzzleGenerator(int threads, int minMoves, int maxMoves, SearchBudget budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Thread count must be positive, got %d.", threads));
+        }
+        if (minMoves < 0 || maxMoves < minMoves) {
+            throw new IllegalArgumentException(String.format("Move range %d-%d is empty.", minMoves, maxMoves));
+        }
+        this.threads = threads;
+        this.minMoves = minMoves;
+        this.maxMoves = maxMoves;
+        this.budget = budget;
+    }
+
+    /**
+     * Generates the given number of candidates from the seed and solves those that pass the cheap checks.
+     *
+     * @throws IllegalArgumentException if positions of the spec do not fit in a single key
+     */
+    public Result generate(Spec spec, long candidates, long seed) throws InterruptedException {
+        var probe = new PlacementTable(spec.rows(), spec.cols(), List.of(), spec.pieces());
+        if (!probe.isCompact()) {
+            throw new IllegalArgumentException(String.format("Puzzles of %d pieces on a %dx%d board are too large to solve.",
+                    spec.pieces().size(), spec.rows(), spec.cols()));
+        }
+
+        long start = System.nanoTime();
+        int familyCount = Math.toIntExact((candidates + CANDIDATES_PER_FAMILY - 1) / CANDIDATES_PER_FAMILY);
+        var random = new SplittableRandom(seed);
+        var families = new ArrayList<Future<Family>>(familyCount);
+        try (var pool = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("puzzle-generator-", 0).daemon(true).factory())) {
+            for (int i = 0; i < familyCount; i++) {
+                int size = (int) Math.min(CANDIDATES_PER_FAMILY, candidates - (long) i * CANDIDATES_PER_FAMILY);
+                var familyRandom = random.split();
+                families.add(pool.submit(() -> new Family(spec, size, familyRandom)));
+            }
+
+            var buckets = new TreeMap<Integer, List<Solution>>();
+            var total = new Family();
+            for (var future : families) {
+                Family family;
+                try {
+                    family = future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Generating a family of candidates failed.", e.getCause());
+                } catch (InterruptedException e) {
+                    pool.shutdownNow();
+                    throw e;
+                }
+                total.add(family);
+                for (var solution : family.accepted) {
+                    buckets.computeIfAbsent(solution.movesMade(), k -> new ArrayList<>()).add(solution);
+                }
+            }
+            buckets.replaceAll((moves, solutions) -> Collections.unmodifiableList(solutions));
+            var stats = new Stats(candidates, total.accepted.size(), total.unplaceable, total.duplicates, total.unsolvable,
+                    total.trivial, total.tooDeep, total.overBudget, Duration.ofNanos(System.nanoTime() - start), threads);
+            return new Result(Collections.unmodifiableSortedMap(buckets), stats);
+        }
+    }
+
+    /**
+     * Candidates sharing one set of cats, and what became of them.
+     */
+    private final class Family {
+        private final List<Solution> accepted = new ArrayList<>();
+        private long unplaceable;
+        private long duplicates;
+        private long unsolvable;
+        private long trivial;
+        private long tooDeep;
+        private long overBudget;
+
+        private Family() {
+        }
+
+        private Family(Spec spec, int size, SplittableRandom random) {
+            var table = new PlacementTable(spec.rows(), spec.cols(), randomCats(spec, random), spec.pieces());
+            for (int attempt = 1; attempt < CAT_ATTEMPTS && !canBeFinished(table); attempt++) {
+                table = new PlacementTable(spec.rows(), spec.cols(), randomCats(spec, random), spec.pieces());
+            }
+            if (!canBeFinished(table)) {
+                unplaceable = size;
+                return;
+            }
+            var heuristic = new CatCoverageHeuristic(table);
+            var seen = VisitedSet.onHeap(size);
+            var keptStarts = VisitedSet.onHeap(size);
+            var placements = new int[table.pieceCount()];
+            var order = IntStream.range(0, table.pieceCount()).boxed()
+                    .sorted(Comparator.comparingInt(table::pieceSize).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            DistanceTable distances = null;
+            boolean searchEach = false;
+            for (int i = 0; i < size && !Thread.currentThread().isInterrupted(); i++) {
+                if (!place(table, order, placements, random)) {
+                    unplaceable++;
+                    continue;
+                }
+                var board = Board.of(table, placements);
+                if (!seen.add(table.canonicalKey(board.encode()))) {
+                    duplicates++;
+                } else if (board.isFinished() && minMoves > 0) {
+                    trivial++;
+                } else {
+                    int bound = heuristic.estimate(board.occupied());
+                    if (bound == CatCoverageHeuristic.UNREACHABLE) {
+                        unsolvable++;
+                    } else if (bound > maxMoves) {
+                        tooDeep++;
+                    } else {
+                        if (distances == null && !searchEach) {
+                            distances = DistanceTable.build(board, (int) Math.min(Integer.MAX_VALUE, budget.maxStates()));
+                            searchEach = distances == null;
+                        }
+                        var solution = searchEach ? solve(board) : lookUp(distances, board);
+                        if (solution != null) {
+                            keep(solution, seen, keptStarts);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Optimal solution of the board if it is within the move range, counting why not otherwise.
+         */
+        private Solution lookUp(DistanceTable distances, Board board) {
+            int moves = distances.distance(board);
+            if (moves == DistanceTable.UNSOLVABLE) {
+                unsolvable++;
+            } else if (moves < minMoves) {
+                trivial++;
+            } else if (moves > maxMoves) {
+                tooDeep++;
+            } else {
+                return distances.findSolution(board);
+            }
+            return null;
+        }
+
+        private Solution solve(Board board) {
+            var result = solver.search(board, SolverListener.NONE, budget);
+            switch (result.outcome()) {
+                case SOLVED -> {
+                    int moves = result.solution().movesMade();
+                    if (moves < minMoves) {
+                        trivial++;
+                    } else if (moves > maxMoves) {
+                        tooDeep++;
+                    } else {
+                        return result.solution();
+                    }
+                }
+                case UNSOLVABLE -> unsolvable++;
+                default -> {
+                    if (result.lowerBound() > maxMoves) {
+                        tooDeep++;
+                    } else {
+                        overBudget++;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Keeps the solution unless it runs through the start of a kept puzzle, which it would only make longer.
+         * Every position on the way is marked as seen, so later candidates that are part of it count as duplicates.
+         */
+        private void keep(Solution solution, VisitedSet seen, VisitedSet keptStarts) {
+            var board = solution.start();
+            var table = board.placementTable();
+            var keys = new long[solution.movesMade() + 1];
+            keys[0] = table.canonicalKey(board.encode());
+            for (int i = 1; i < keys.length; i++) {
+                board = board.makeMove(solution.moves().get(i - 1));
+                keys[i] = table.canonicalKey(board.encode());
+                if (keptStarts.contains(keys[i])) {
+                    duplicates++;
+                    return;
+                }
+            }
+            keptStarts.add(keys[0]);
+            for (long key : keys) {
+                seen.add(key);
+            }
+            accepted.add(solution);
+        }
+
+        private void add(Family other) {
+            accepted.addAll(other.accepted);
+            unplaceable += other.unplaceable;
+            duplicates += other.duplicates;
+            unsolvable += other.unsolvable;
+            trivial += other.trivial;
+            tooDeep += other.tooDeep;
+            overBudget += other.overBudget;
+        }
+    }
+
+    private static List<Cat> randomCats(Spec spec, SplittableRandom random) {
+        int cells = spec.rows() * spec.cols();
+        var chosen = new boolean[cells];
+        var cats = new ArrayList<Cat>(spec.cats());
+        while (cats.size() < spec.cats()) {
+            int cell = random.nextInt(cells);
+            if (!chosen[cell]) {
+                chosen[cell] = true;
+                cats.add(new Cat(cell / spec.cols(), cell % spec.cols()));
+            }
+        }
+        return cats;
+    }
+
+    /**
+     * Whether the puzzle has a finished position at all. Without one every candidate of the family is unsolvable.
+     */
+    private static boolean canBeFinished(PlacementTable table) {
+        if (!canCoverAllCats(table)) {
+            return false;
+        }
+        var goals = BidirectionalSolver.goals(table, 1);
+        return goals == null || goals.length > 0;
+    }
+
+    /**
+     * Whether every cat is under a box of some cat-safe placement, which no move can change.
+     */
+    private static boolean canCoverAllCats(PlacementTable table) {
+        long coverable = 0;
+        for (int piece = 0; piece < table.pieceCount(); piece++) {
+            for (int placement = 0; placement < table.placementCount(piece); placement++) {
+                if (table.isCatSafe(piece, placement)) {
+                    coverable |= table.boxMask(piece, placement);
+                }
+            }
+        }
+        return (table.catMask() & ~coverable) == 0;
+    }
+
+    /**
+     * Puts every piece at a random cat-safe placement clear of the pieces before it, as {@link Board#canBePlaced}
+     * requires, largest piece first. Starts over when a piece finds no room, and returns false if that keeps
+     * happening.
+     */
+    private static boolean place(PlacementTable table, int[] order, int[] placements, SplittableRandom random) {
+        var occupied = new long[table.words()];
+        for (int packing = 0; packing < PACKING_ATTEMPTS; packing++) {
+            Arrays.fill(occupied, 0);
+            boolean placed = true;
+            for (int i = 0; i < order.length && placed; i++) {
+                int piece = order[i];
+                placed = false;
+                for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS && !placed; attempt++) {
+                    int placement = random.nextInt(table.placementCount(piece));
+                    if (table.isCatSafe(piece, placement) && table.fits(piece, placement, occupied)) {
+                        placements[piece] = placement;
+                        table.occupy(occupied, piece, placement);
+                        placed = true;
+                    }
+                }
+            }
+            if (placed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates puzzles shaped like the one given as rows, e.g.
+     * {@code java PuzzleGenerator 100000 10 40 @abB@ Aa@b. .aAb. @cdDd cCc@d}, and prints how many were found per
+     * number of moves.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long candidates = Long.parseLong(args[0]);
+        int minMoves = Integer.parseInt(args[1]);
+        int maxMoves = Integer.parseInt(args[2]);
+        var spec = Spec.like(Board.from(List.of(args).subList(3, args.length)));
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        var result = new PuzzleGenerator(threads, minMoves, maxMoves).generate(spec, candidates, System.nanoTime());
+        result.buckets().forEach((moves, solutions) -> {
+            System.out.printf("%d moves: %d puzzles%n", moves, solutions.size());
+            System.out.println(solutions.getFirst().start());
+        });
+        var stats = result.stats();
+        System.out.printf("%d candidates in %s on %d threads, %.0f per second per core%n", stats.candidates(),
+                stats.elapsed(), stats.threads(), stats.candidatesPerSecondPerCore());
+        System.out.printf("kept %d, unplaceable %d, duplicates %d, unsolvable %d, trivial %d, too deep %d, over budget %d%n",
+                stats.accepted(), stats.unplaceable(), stats.duplicates(), stats.unsolvable(), stats.trivial(),
+                stats.tooDeep(), stats.overBudget());
+    }
+}
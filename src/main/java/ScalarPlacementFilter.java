@@ -0,0 +1,19 @@
+/**
+ * Tests placements one by one, for JVMs without the Vector API.
+ */
+final class ScalarPlacementFilter implements PlacementFilter {
+
+    @Override
+    public void legal(long[] masks, long others, long[] catSafe, long[] legal) {
+        for (int w = 0; w < catSafe.length; w++) {
+            long bits = 0;
+            int end = Math.min(masks.length, (w + 1) << 6);
+            for (int p = w << 6; p < end; p++) {
+                if ((masks[p] & others) == 0) {
+                    bits |= 1L << p;
+                }
+            }
+            legal[w] = bits & catSafe[w];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits on a single search, after which it stops with what it has found so far. States count every distinct
+ * position stored, which bounds the memory of the search, as the store and the visited set grow with it.
+ * The search also stops once {@code cancelled} returns true or its thread is interrupted; both are polled every
+ * so many nodes, as is the clock.
+ */
+public record SearchBudget(long maxNodes, Duration maxTime, long maxStates, BooleanSupplier cancelled) {
+
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, null, Long.MAX_VALUE, () -> false);
+
+    public SearchBudget {
+        if (maxNodes < 1 || maxStates < 1) {
+            throw new IllegalArgumentException(String.format("Budget of %d nodes and %d states must be positive.", maxNodes, maxStates));
+        }
+        if (maxTime != null && maxTime.isNegative()) {
+            throw new IllegalArgumentException(String.format("Time budget %s is negative.", maxTime));
+        }
+    }
+
+    /**
+     * Time budget in nanoseconds, {@link Long#MAX_VALUE} if there is none or it is too long to count in nanoseconds.
+     */
+    public long maxNanos() {
+        return maxTime == null || maxTime.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : maxTime.toNanos();
+    }
+
+    /**
+     * @param maxNodes states expanded at most
+     */
+    public SearchBudget withMaxNodes(long maxNodes) {
+        return new SearchBudget(maxNodes, maxTime, maxStates, cancelled);
+    }
+
+    /**
+     * @param maxTime wall time at most, or null for no limit
+     */
+    public SearchBudget withMaxTime(Duration maxTime) {
+        return new SearchBudget(maxNodes, maxTime, maxStates, cancelled);
+    }
+
+    /**
+     * @param maxStates distinct states stored at most
+     */
+    public SearchBudget withMaxStates(long maxStates) {
+        return new SearchBudget(maxNodes, maxTime, maxStates, cancelled);
+    }
+
+    /**
+     * @param cancelled polled during the search, e.g. {@code flag::get} of an {@code AtomicBoolean}
+     */
+    public SearchBudget withCancellation(BooleanSupplier cancelled) {
+        return new SearchBudget(maxNodes, maxTime, maxStates, cancelled);
+    }
+}
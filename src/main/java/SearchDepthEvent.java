@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("catsandboxes.SearchDepth")
+@Label("Search Depth")
+@Category({"Cats and Boxes", "Solver"})
+@Description("Expansion of one depth of a breadth-first search")
+class SearchDepthEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Frontier Size")
+    long frontierSize;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Moves Generated")
+    long movesGenerated;
+
+    @Label("Duplicates Skipped")
+    long duplicatesSkipped;
+
+    @Label("Visited Size")
+    long visitedSize;
+}
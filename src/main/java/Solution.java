@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered moves that take the start board to a finished one.
+ */
+public record Solution(Board start, List<Move> moves) {
+
+    public Solution {
+        moves = List.copyOf(moves);
+    }
+
+    /**
+     * Builds the solution from the keys of every state on the path, starting with the key of the start board. Keys
+     * are wide keys of {@link PlacementTable#keyWords()} words each, which is a single {@code long} for compact
+     * puzzles.
+     */
+    public static Solution fromPath(Board start, long[] path) {
+        var table = start.placementTable();
+        int words = table.keyWords();
+        var moves = new ArrayList<Move>(path.length / words);
+        for (int i = words; i < path.length; i += words) {
+            for (int piece = 0; piece < table.pieceCount(); piece++) {
+                int placement = table.placement(path, i, piece);
+                if (placement != table.placement(path, i - words, piece)) {
+                    var moved = table.piece(piece, placement);
+                    moves.add(new Move(moved.id(), moved.rotation(), moved.row(), moved.col()));
+                    break;
+                }
+            }
+        }
+        return new Solution(start, moves);
+    }
+
+    public int movesMade() {
+        return moves.size();
+    }
+
+    /**
+     * Replays the moves on the start board.
+     */
+    public Board finalBoard() {
+        var board = start;
+        for (Move move : moves) {
+            board = board.makeMove(move);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Solver front that remembers solutions by the canonical encoding of the puzzle rows. Recently used solutions stay
+ * in a size-bounded in-memory tier; every solution is also written to an optional memory-mapped file, so they
+ * survive restarts.
+ * <p>
+ * Moves are stored per piece letter rather than per piece id, since ids differ between parses of the same puzzle.
+ */
+public class SolutionCache implements AutoCloseable {
+
+    /**
+     * Cached outcome of a puzzle: the moves, or null moves if the puzzle has no solution. Every move takes
+     * {@link #MOVE_FIELDS} ints: the letter index of the piece, its rotation, row and column.
+     */
+    record Entry(int[] moves) {}
+
+    static final int MOVE_FIELDS = 4;
+
+    private final Map<String, Entry> memory;
+    private final DiskSolutionStore disk;
+    private final Function<Board, Solution> engine;
+
+    public SolutionCache(int memoryEntries) {
+        this(memoryEntries, (DiskSolutionStore) null, new Solver()::findSolution);
+    }
+
+    public SolutionCache(int memoryEntries, Path file) throws IOException {
+        this(memoryEntries, file, new Solver()::findSolution);
+    }
+
+    /**
+     * @param file   file backing the persistent tier, or null to only cache in memory
+     * @param engine finds the solution of a board on a cache miss, or null if there is none
+     */
+    public SolutionCache(int memoryEntries, Path file, Function<Board, Solution> engine) throws IOException {
+        this(memoryEntries, file == null ? null : new DiskSolutionStore(file), engine);
+    }
+
+    private SolutionCache(int memoryEntries, DiskSolutionStore disk, Function<Board, Solution> engine) {
+        if (memoryEntries < 1) {
+            throw new IllegalArgumentException(String.format("Memory tier needs at least one entry, got %d.", memoryEntries));
+        }
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        this.disk = disk;
+        this.engine = engine;
+    }
+
+    /**
+     * Solution of the puzzle, or null if it has none, solving it only if neither tier knows the puzzle yet.
+     */
+    public Solution solve(List<String> rows) {
+        return solve(rows, null);
+    }
+
+    /**
+     * Like {@link #solve(List)}, with the board of the rows if the caller has already parsed it. Otherwise the rows
+     * are only parsed when needed: to solve them on a miss, or as the start of a cached solution.
+     */
+    public Solution solve(List<String> rows, Board board) {
+        var key = canonicalEncoding(rows);
+        var entry = lookup(key);
+        if (entry != null && entry.moves() == null) {
+            return null;
+        }
+        if (board == null) {
+            board = Board.from(rows);
+        }
+        if (entry == null) {
+            var solution = engine.apply(board);
+            entry = toEntry(rows, solution);
+            store(key, entry);
+        }
+        return entry.moves() == null ? null : toSolution(rows, board, entry);
+    }
+
+    /**
+     * Puzzle rows joined by '/', with piece letters renamed in order of first appearance to the letters of the
+     * first piece ids, so the same puzzle drawn with other letters has the same encoding. Other characters are kept.
+     */
+    public static String canonicalEncoding(List<String> rows) {
+        var letters = new HashMap<Character, Character>();
+        var res = new StringBuilder();
+        for (String row : rows) {
+            if (!res.isEmpty()) {
+                res.append('/');
+            }
+            for (int i = 0; i < row.length(); i++) {
+                var c = row.charAt(i);
+                if (Board.pieceId(c) >= 0) {
+                    var letter = letters.computeIfAbsent(Character.toLowerCase(c), k -> Board.pieceLetter(letters.size()));
+                    res.append(Character.isUpperCase(c) ? Character.toUpperCase(letter) : letter);
+                } else {
+                    res.append(c);
+                }
+            }
+        }
+        return res.toString();
+    }
+
+    private synchronized Entry lookup(String key) {
+        var entry = memory.get(key);
+        if (entry == null && disk != null) {
+            entry = disk.get(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        memory.put(key, entry);
+        if (disk != null && disk.get(key) == null) {
+            try {
+                disk.put(key, entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Entry toEntry(List<String> rows, Solution solution) {
+        if (solution == null) {
+            return new Entry(null);
+        }
+        var letterOfPiece = new HashMap<Integer, Integer>();
+        var pieceIds = pieceIdsByLetter(rows);
+        for (int letter = 0; letter < pieceIds.size(); letter++) {
+            letterOfPiece.put(pieceIds.get(letter), letter);
+        }
+        var moves = new int[solution.movesMade() * MOVE_FIELDS];
+        for (int i = 0; i < solution.movesMade(); i++) {
+            var move = solution.moves().get(i);
+            moves[i * MOVE_FIELDS] = letterOfPiece.get(move.pieceId());
+            moves[i * MOVE_FIELDS + 1] = move.rotation();
+            moves[i * MOVE_FIELDS + 2] = move.row();
+            moves[i * MOVE_FIELDS + 3] = move.column();
+        }
+        return new Entry(moves);
+    }
+
+    private static Solution toSolution(List<String> rows, Board board, Entry entry) {
+        var pieceIds = pieceIdsByLetter(rows);
+        var fields = entry.moves();
+        var moves = new ArrayList<Move>(fields.length / MOVE_FIELDS);
+        for (int i = 0; i < fields.length; i += MOVE_FIELDS) {
+            moves.add(new Move(pieceIds.get(fields[i]), fields[i + 1], fields[i + 2], fields[i + 3]));
+        }
+        return new Solution(board, moves);
+    }
+
+    /**
+     * Id of each piece of the rows, in order of the first appearance of its letter.
+     */
+    private static List<Integer> pieceIdsByLetter(List<String> rows) {
+        var seen = new HashMap<Character, Boolean>();
+        var res = new ArrayList<Integer>();
+        for (String row : rows) {
+            for (int col = 0; col < row.length(); col++) {
+                var c = row.charAt(col);
+                if (Board.pieceId(c) >= 0 && seen.putIfAbsent(Character.toLowerCase(c), true) == null) {
+                    res.add(Board.pieceId(c));
+                }
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+}
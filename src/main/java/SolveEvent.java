@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("catsandboxes.Solve")
+@Label("Solve")
+@Category({"Cats and Boxes", "Solver"})
+@Description("A complete search for the solution of one board")
+class SolveEvent extends Event {
+
+    @Label("Solved")
+    boolean solved;
+
+    @Label("Moves")
+    int moves;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Visited Size")
+    long visitedSize;
+}
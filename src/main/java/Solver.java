@@ -1,33 +1,360 @@
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 public class Solver {
 
+    /**
+     * Why a search stopped.
+     */
+    public enum Outcome {
+        SOLVED,
+        UNSOLVABLE,
+        NODE_LIMIT,
+        TIME_LIMIT,
+        STATE_LIMIT,
+        CANCELLED
+    }
+
+    /**
+     * Result of a search and its statistics. The solution is only present when solved. Every depth below the lower
+     * bound was searched without finding a solution, so no solution has fewer moves; once solved it is the number of
+     * moves of the solution. The closest is the path to the searched position with the fewest uncovered cats, which
+     * is the solution once solved.
+     */
+    public record SearchResult(Solution solution, SolverStats stats, Outcome outcome, int lowerBound, Solution closest) {}
+
+    private static final int DEFAULT_EXPECTED_STATES = 1 << 16;
+    private static final int INTERRUPT_CHECK_INTERVAL = 1 << 10;
+
+    private final Supplier<VisitedSet> visitedSets;
+    private final boolean reduceSymmetry;
+    private final boolean reduceCommutingMoves;
+
+    public Solver() {
+        this(() -> VisitedSet.onHeap(DEFAULT_EXPECTED_STATES));
+    }
+
+    /**
+     * @param visitedSets creates the visited set of each solve, e.g. {@code () -> VisitedSet.offHeap(1 << 24)}, except
+     *                    for puzzles whose positions do not fit in a {@code long}, which keep their own
+     */
+    public Solver(Supplier<VisitedSet> visitedSets) {
+        this(visitedSets, true);
+    }
+
+    /**
+     * @param reduceSymmetry whether positions that look the same, up to rotations of symmetric pieces and swaps of
+     *                       identical pieces, are explored only once
+     */
+    public Solver(Supplier<VisitedSet> visitedSets, boolean reduceSymmetry) {
+        this(visitedSets, reduceSymmetry, true);
+    }
+
+    /**
+     * @param reduceCommutingMoves whether of two moves that commute only one order is generated, see
+     *                             {@link PlacementTable#forEachMove(int[], long, int, long, PlacementTable.MoveConsumer)}.
+     *                             Puzzles whose positions do not fit in a {@code long} always generate both orders.
+     */
+    public Solver(Supplier<VisitedSet> visitedSets, boolean reduceSymmetry, boolean reduceCommutingMoves) {
+        this.visitedSets = visitedSets;
+        this.reduceSymmetry = reduceSymmetry;
+        this.reduceCommutingMoves = reduceCommutingMoves;
+    }
+
     public Board solve(Board board) {
-        var visited = new HashSet<>();
-        var queue = new LinkedList<Board>();
+        var solution = findSolution(board);
+        return solution == null ? null : solution.finalBoard();
+    }
+
+    public Solution findSolution(Board board) {
+        return search(board, SolverListener.NONE).solution();
+    }
 
-        queue.add(board);
-        Board currentBoard;
+    /**
+     * Breadth-first search over state keys. The store doubles as the queue: states are appended in the order they
+     * are discovered and expanded in that same order, so no {@link Board} is kept per explored state.
+     * The store keeps the actual keys, so consecutive states on a path differ in one piece, while the visited set
+     * holds canonical keys when symmetry is reduced. Puzzles of more than 64 cells or whose keys need more than 64
+     * bits store wide keys and visit them, canonical when symmetry is reduced, in a {@link WideKeySet} instead of the
+     * visited set. They always generate both orders of moves that commute, as telling them apart needs bitboards.
+     * <p>
+     * Every completed depth is reported to the listener and recorded as a JFR {@code catsandboxes.SearchDepth} event.
+     *
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public SearchResult search(Board board, SolverListener listener) {
+        var res = search(board, listener, SearchBudget.UNLIMITED);
+        if (res.outcome() == Outcome.CANCELLED) {
+            throw new CancellationException("Solve was interrupted.");
+        }
+        return res;
+    }
+
+    /**
+     * Like {@link #search(Board, SolverListener)}, but stops once the budget is spent, the budget's cancellation
+     * reports true or the thread is interrupted, returning what was found so far. The interrupt is left set.
+     */
+    public SearchResult search(Board board, SolverListener listener, SearchBudget budget) {
+        try (var visited = visitedSets.get()) {
+            return search(board, listener, budget, visited);
+        }
+    }
+
+    private SearchResult search(Board board, SolverListener listener, SearchBudget budget, VisitedSet visited) {
+        var solveEvent = new SolveEvent();
+        solveEvent.begin();
+        var table = board.placementTable();
+        var store = new StateStore(DEFAULT_EXPECTED_STATES, table.keyWords());
+        var positions = table.isCompact()
+                ? new CompactPositions(table, store, visited, board.encode())
+                : new WidePositions(table, store, board);
+        var depths = new ArrayList<DepthStats>();
 
-        while (!queue.isEmpty()) {
-            currentBoard = queue.remove();
-            if (visited.contains(currentBoard.encode())) {
-                continue;
+        long start = System.nanoTime();
+        var depth = new Depth(0, 0, store.size());
+        Solution solution = null;
+        var outcome = Outcome.UNSOLVABLE;
+        int closest = 0;
+        int closestUncovered = Integer.MAX_VALUE;
+        for (int head = 0; head < store.size(); head++) {
+            if (head == depth.end) {
+                depth.complete(positions.visitedSize(), depths, listener);
+                depth = new Depth(depth.depth + 1, head, store.size());
+            }
+            if (head % INTERRUPT_CHECK_INTERVAL == 0) {
+                if (Thread.currentThread().isInterrupted() || budget.cancelled().getAsBoolean()) {
+                    outcome = Outcome.CANCELLED;
+                    break;
+                }
+                if (System.nanoTime() - start >= budget.maxNanos()) {
+                    outcome = Outcome.TIME_LIMIT;
+                    break;
+                }
+            }
+            int uncovered = positions.load(head);
+            if (uncovered == 0) {
+                solution = Solution.fromPath(board, store.path(head));
+                outcome = Outcome.SOLVED;
+                closest = head;
+                break;
             }
-            visited.add(currentBoard.encode());
-            if (currentBoard.isFinished()) {
-                return currentBoard;
+            if (uncovered < closestUncovered) {
+                closest = head;
+                closestUncovered = uncovered;
             }
+            if (head >= budget.maxNodes()) {
+                outcome = Outcome.NODE_LIMIT;
+                break;
+            }
+            if (store.size() >= budget.maxStates()) {
+                outcome = Outcome.STATE_LIMIT;
+                break;
+            }
+            depth.nodesExpanded++;
+            positions.expand(head, depth);
+        }
+        depth.complete(positions.visitedSize(), depths, listener);
+
+        var stats = new SolverStats(depths);
+        listener.onFinished(stats);
+        solveEvent.solved = solution != null;
+        solveEvent.moves = solution == null ? -1 : solution.movesMade();
+        solveEvent.nodesExpanded = stats.nodesExpanded();
+        solveEvent.visitedSize = stats.visitedSize();
+        solveEvent.commit();
+        int lowerBound = solution != null ? solution.movesMade() : depth.depth;
+        return new SearchResult(solution, stats, outcome, lowerBound, Solution.fromPath(board, store.path(closest)));
+    }
+
+    /**
+     * The states of a search in its store, decoded and expanded one at a time.
+     */
+    private interface Positions {
+        /**
+         * Decodes the state at the index and returns its number of uncovered cats.
+         */
+        int load(int index);
+
+        /**
+         * Adds every unvisited state one move away from the loaded state to the store, with it as their parent.
+         */
+        void expand(int index, Depth counters);
+
+        long visitedSize();
+    }
+
+    /**
+     * States of a compact puzzle: single {@code long} keys, bitboards, and canonical keys in the visited set.
+     */
+    private final class CompactPositions implements Positions {
+        private final PlacementTable table;
+        private final StateStore store;
+        private final VisitedSet visited;
+        private final int[] placements;
+        private final long catMask;
+        private long key;
+        private long occupied;
+
+        private CompactPositions(PlacementTable table, StateStore store, VisitedSet visited, long start) {
+            this.table = table;
+            this.store = store;
+            this.visited = visited;
+            this.placements = new int[table.pieceCount()];
+            this.catMask = table.catMask();
+            visited.add(reduceSymmetry ? table.canonicalKey(start) : start);
+            store.add(start, StateStore.NO_PARENT);
+        }
+
+        @Override
+        public int load(int index) {
+            key = store.key(index);
+            table.decode(key, placements);
+            occupied = table.occupancy(placements);
+            return Long.bitCount(catMask & ~occupied);
+        }
+
+        @Override
+        public void expand(int index, Depth counters) {
+            int movedPiece = -1;
+            long movedCells = 0;
+            if (reduceCommutingMoves && store.parent(index) != StateStore.NO_PARENT) {
+                long previous = store.key(store.parent(index));
+                movedPiece = table.movedPiece(key, previous);
+                movedCells = table.mask(movedPiece, placements[movedPiece])
+                        | table.mask(movedPiece, table.placement(previous, movedPiece));
+            }
+
+            long parentKey = key;
+            PlacementTable.MoveConsumer expand = (piece, placement) -> {
+                long child = table.withPlacement(parentKey, piece, placement);
+                counters.movesGenerated++;
+                if (visited.add(reduceSymmetry ? table.canonicalKey(child) : child)) {
+                    store.add(child, index);
+                } else {
+                    counters.duplicatesSkipped++;
+                }
+            };
+            if (reduceSymmetry) {
+                table.forEachDistinctMove(placements, occupied, movedPiece, movedCells, expand);
+            } else {
+                table.forEachMove(placements, occupied, movedPiece, movedCells, expand);
+            }
+        }
+
+        @Override
+        public long visitedSize() {
+            return visited.size();
+        }
+    }
+
+    /**
+     * States of a puzzle whose cells or keys do not fit in a {@code long}: wide keys, cell sets of several words, and
+     * the wide keys, canonical when symmetry is reduced, in a set of their own. Moves are not ordered, as that needs
+     * the bitboards of the moved piece.
+     */
+    private final class WidePositions implements Positions {
+        private final PlacementTable table;
+        private final StateStore store;
+        private final WideKeySet visited;
+        private final int[] placements;
+        private final long[] key;
+        private final long[] child;
+        private final long[] visitedKey;
+        private long[] occupied;
+
+        private WidePositions(PlacementTable table, StateStore store, Board start) {
+            this.table = table;
+            this.store = store;
+            this.visited = new WideKeySet(table.keyWords(), DEFAULT_EXPECTED_STATES);
+            this.placements = start.placements();
+            this.key = new long[table.keyWords()];
+            this.child = new long[table.keyWords()];
+            this.visitedKey = new long[table.keyWords()];
+            table.encode(placements, key, 0);
+            visit(key);
+            store.add(key, StateStore.NO_PARENT);
+        }
+
+        private boolean visit(long[] state) {
+            System.arraycopy(state, 0, visitedKey, 0, visitedKey.length);
+            if (reduceSymmetry) {
+                table.canonicalKey(visitedKey, 0);
+            }
+            return visited.add(visitedKey, 0);
+        }
+
+        @Override
+        public int load(int index) {
+            store.key(index, key);
+            table.decode(key, 0, placements);
+            occupied = table.occupancyWords(placements);
+            return table.uncoveredCats(occupied);
+        }
+
+        @Override
+        public void expand(int index, Depth counters) {
+            PlacementTable.MoveConsumer expand = (piece, placement) -> {
+                counters.movesGenerated++;
+                System.arraycopy(key, 0, child, 0, key.length);
+                table.setPlacement(child, 0, piece, placement);
+                if (visit(child)) {
+                    store.add(child, index);
+                } else {
+                    counters.duplicatesSkipped++;
+                }
+            };
+            var moves = MoveSet.of(table, placements, occupied);
+            if (reduceSymmetry) {
+                moves.forEachDistinct(placements, expand);
+            } else {
+                moves.forEach(placements, expand);
+            }
+        }
+
+        @Override
+        public long visitedSize() {
+            return visited.size();
+        }
+    }
+
+    /**
+     * Counters of the depth being searched, whose states are the store entries from start up to end.
+     */
+    private static final class Depth {
+        private final int depth;
+        private final int start;
+        private final int end;
+        private final long startNanos = System.nanoTime();
+        private final SearchDepthEvent event = new SearchDepthEvent();
+        private long nodesExpanded;
+        private long movesGenerated;
+        private long duplicatesSkipped;
+
+        private Depth(int depth, int start, int end) {
+            this.depth = depth;
+            this.start = start;
+            this.end = end;
+            event.begin();
+        }
 
-            var moves = currentBoard.getMovesPerPiece().values().stream().flatMap(List::stream).toList();
-            for (Piece move : moves) {
-                var newBoard = currentBoard.makeMove(move);
-                queue.add(newBoard);
+        private void complete(long visitedSize, List<DepthStats> depths, SolverListener listener) {
+            var stats = new DepthStats(depth, end - start, nodesExpanded, movesGenerated, duplicatesSkipped,
+                    visitedSize, Duration.ofNanos(System.nanoTime() - startNanos));
+            depths.add(stats);
+            if (event.shouldCommit()) {
+                event.depth = depth;
+                event.frontierSize = stats.frontierSize();
+                event.nodesExpanded = nodesExpanded;
+                event.movesGenerated = movesGenerated;
+                event.duplicatesSkipped = duplicatesSkipped;
+                event.visitedSize = stats.visitedSize();
+                event.commit();
             }
+            listener.onDepthCompleted(stats);
         }
-        return null;
     }
 
 }
@@ -0,0 +1,13 @@
+/**
+ * Progress callbacks of a search, called on the searching thread.
+ */
+public interface SolverListener {
+
+    SolverListener NONE = new SolverListener() {};
+
+    default void onDepthCompleted(DepthStats depth) {
+    }
+
+    default void onFinished(SolverStats stats) {
+    }
+}
@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long-running solver behind the JDK's HTTP server, so repeated solves skip JVM startup and run on warm code.
+ * Every request is handled on its own virtual thread; the solves themselves run on a fixed pool of platform threads,
+ * as in {@link BatchSolver}. Solutions are remembered per puzzle in a {@link SolutionCache}, and cached answers are
+ * sent from the handler thread without waiting for a solver thread. The boards of recently posted puzzles are kept
+ * too, so a repeated puzzle is not parsed again.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code POST /solve} with the rows of a puzzle in the format of {@link Board#from(List)}, one per line.
+ *     The first line of the answer is the outcome and the number of moves, which is the lower bound when the search
+ *     ran out of time, e.g. {@code solved 7}, {@code unsolvable 0} or {@code time_limit 12}; every move follows on a
+ *     line of its own as {@code pieceId rotation row column}.</li>
+ *     <li>{@code GET /metrics} with request latency histograms per outcome and solver counters in the Prometheus
+ *     text format.</li>
+ * </ul>
+ * At most {@code maxConcurrent} puzzles are solved at a time and at most {@code maxQueued} wait for a thread; any
+ * puzzle beyond that is turned away at once with status 503, so an overloaded server stays responsive. Puzzles that
+ * cannot be parsed get status 400, and searches that fail get 500.
+ */
+public class SolverServer implements AutoCloseable {
+
+    /**
+     * Searches a board within a budget.
+     */
+    @FunctionalInterface
+    interface Engine {
+        Solver.SearchResult search(Board board, SearchBudget budget);
+    }
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_BODY_BYTES = 1 << 16;
+    private static final int CACHE_ENTRIES = 1 << 12;
+    private static final int BOARD_ENTRIES = 1 << 8;
+    private static final List<String> OUTCOMES = List.of("solved", "unsolvable", "time_limit", "node_limit",
+            "state_limit", "cancelled", "rejected", "invalid", "failed");
+
+    private final HttpServer server;
+    private final ExecutorService solvers;
+    private final Semaphore admissions;
+    private final SearchBudget budget;
+    private final Engine engine;
+    private final SolutionCache cache;
+    // boards of recently posted puzzles by their rows, so repeated puzzles skip parsing and keep their tables
+    private final Map<List<String>, Board> boards;
+
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder movesGenerated = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param address       where to listen, port 0 for any free port
+     * @param maxConcurrent puzzles solved at the same time
+     * @param maxQueued     puzzles waiting for a solver thread before further requests are rejected
+     * @param timeout       longest a single search may take
+     */
+    public SolverServer(InetSocketAddress address, int maxConcurrent, int maxQueued, Duration timeout) throws IOException {
+        this(address, maxConcurrent, maxQueued, timeout, searchWith(new Solver()));
+    }
+
+    SolverServer(InetSocketAddress address, int maxConcurrent, int maxQueued, Duration timeout, Engine engine) throws IOException {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException(String.format("Concurrency must be positive and the queue not negative, got %d and %d.",
+                    maxConcurrent, maxQueued));
+        }
+        this.solvers = Executors.newFixedThreadPool(maxConcurrent, Thread.ofPlatform().name("solver-server-", 0).daemon(true).factory());
+        this.admissions = new Semaphore(maxConcurrent + maxQueued);
+        this.budget = SearchBudget.UNLIMITED.withMaxTime(timeout);
+        this.engine = engine;
+        this.cache = new SolutionCache(CACHE_ENTRIES, null, this::solveOnPool);
+        this.boards = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, Board> eldest) {
+                return size() > BOARD_ENTRIES;
+            }
+        };
+        for (var outcome : OUTCOMES) {
+            latencies.put(outcome, new LatencyHistogram());
+        }
+
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    private static Engine searchWith(Solver solver) {
+        return (board, budget) -> solver.search(board, SolverListener.NONE, budget);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int processors = Runtime.getRuntime().availableProcessors();
+        var server = new SolverServer(new InetSocketAddress(port), processors, 4 * processors, DEFAULT_TIMEOUT);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.printf("Solving on port %d with %d threads.%n", server.port(), processors);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/metrics", this::handleMetrics);
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Solve run on a cache miss, on a solver thread if one is free or queued within the limit. Searches cut short
+     * are not cached, so they are thrown instead of returned, as are rejections.
+     */
+    private Solution solveOnPool(Board board) {
+        if (!admissions.tryAcquire()) {
+            throw new Rejected();
+        }
+        try {
+            var future = solvers.submit(() -> search(board));
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Server is shutting down.");
+            }
+        } finally {
+            admissions.release();
+        }
+    }
+
+    private Solution search(Board board) {
+        searches.increment();
+        var result = engine.search(board, budget);
+        nodesExpanded.add(result.stats().nodesExpanded());
+        movesGenerated.add(result.stats().movesGenerated());
+        return switch (result.outcome()) {
+            case SOLVED -> result.solution();
+            case UNSOLVABLE -> null;
+            default -> throw new Unfinished(result);
+        };
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Use POST with the rows of a puzzle.\n", "invalid", start);
+                return;
+            }
+            var body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                respond(exchange, 413, String.format("Puzzles are limited to %d bytes.\n", MAX_BODY_BYTES), "invalid", start);
+                return;
+            }
+            var rows = Arrays.stream(new String(body, StandardCharsets.UTF_8).split("\n"))
+                    .map(String::strip)
+                    .filter(row -> !row.isEmpty())
+                    .toList();
+            Board board;
+            try {
+                board = board(rows);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n", "invalid", start);
+                return;
+            } catch (RuntimeException e) {
+                respond(exchange, 500, "Solve failed.\n", "failed", start);
+                return;
+            }
+
+            inFlight.incrementAndGet();
+            try {
+                solve(exchange, rows, board, start);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Board of the rows, parsed only if they were not posted recently.
+     *
+     * @throws IllegalArgumentException if the rows are not a puzzle
+     */
+    private Board board(List<String> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Puzzle has no rows.");
+        }
+        synchronized (boards) {
+            var board = boards.get(rows);
+            if (board != null) {
+                return board;
+            }
+        }
+        var board = Board.from(rows);
+        synchronized (boards) {
+            boards.put(rows, board);
+        }
+        return board;
+    }
+
+    /**
+     * Answers from the cache on the handler thread; only a miss waits for a solver thread.
+     */
+    private void solve(HttpExchange exchange, List<String> rows, Board board, long start) throws IOException {
+        try {
+            var solution = cache.solve(rows, board);
+            if (solution == null) {
+                respond(exchange, 200, "unsolvable 0\n", "unsolvable", start);
+                return;
+            }
+            var res = new StringBuilder(String.format("solved %d\n", solution.movesMade()));
+            for (var move : solution.moves()) {
+                res.append(String.format("%d %d %d %d\n", move.pieceId(), move.rotation(), move.row(), move.column()));
+            }
+            respond(exchange, 200, res.toString(), "solved", start);
+        } catch (Unfinished unfinished) {
+            var outcome = unfinished.result.outcome().name().toLowerCase();
+            respond(exchange, 200, String.format("%s %d\n", outcome, unfinished.result.lowerBound()), outcome, start);
+        } catch (Rejected e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, "Too many puzzles in progress.\n", "rejected", start);
+        } catch (CancellationException e) {
+            respond(exchange, 503, "Server is shutting down.\n", "cancelled", start);
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "Solve failed.\n", "failed", start);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, "Use GET.\n");
+                return;
+            }
+            send(exchange, 200, metrics());
+        }
+    }
+
+    /**
+     * Metrics in the Prometheus text format.
+     */
+    String metrics() {
+        var res = new StringBuilder();
+        res.append("# HELP solver_request_seconds Latency of solve requests by outcome.\n");
+        res.append("# TYPE solver_request_seconds histogram\n");
+        latencies.forEach((outcome, histogram) -> histogram.writeTo(res, "solver_request_seconds", "outcome=\"" + outcome + "\""));
+        counter(res, "solver_searches_total", "Searches run, leaving out requests answered from the cache.", searches.sum());
+        counter(res, "solver_nodes_expanded_total", "States expanded by all searches.", nodesExpanded.sum());
+        counter(res, "solver_moves_generated_total", "Moves generated by all searches.", movesGenerated.sum());
+        res.append("# HELP solver_in_flight Solve requests admitted and not yet answered.\n");
+        res.append("# TYPE solver_in_flight gauge\n");
+        res.append("solver_in_flight ").append(inFlight.get()).append('\n');
+        return res.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private void respond(HttpExchange exchange, int status, String body, String outcome, long start) throws IOException {
+        send(exchange, status, body);
+        latencies.get(outcome).record(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * Stops accepting requests, interrupts the solves in progress and waits for the handlers to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        solvers.shutdownNow();
+        try {
+            cache.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A puzzle turned away because all solver threads and queue places are taken.
+     */
+    private static final class Rejected extends RuntimeException {
+        private Rejected() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A search that stopped before it knew the answer.
+     */
+    private static final class Unfinished extends RuntimeException {
+        private final transient Solver.SearchResult result;
+
+        private Unfinished(Solver.SearchResult result) {
+            super(null, null, false, false);
+            this.result = result;
+        }
+    }
+}
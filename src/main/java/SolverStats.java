@@ -0,0 +1,41 @@
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Statistics of a whole search, one entry per depth in the order they were searched.
+ */
+public record SolverStats(List<DepthStats> depths) {
+
+    public SolverStats {
+        depths = List.copyOf(depths);
+    }
+
+    public long nodesExpanded() {
+        return depths.stream().mapToLong(DepthStats::nodesExpanded).sum();
+    }
+
+    public long movesGenerated() {
+        return depths.stream().mapToLong(DepthStats::movesGenerated).sum();
+    }
+
+    public long duplicatesSkipped() {
+        return depths.stream().mapToLong(DepthStats::duplicatesSkipped).sum();
+    }
+
+    public long peakFrontierSize() {
+        return depths.stream().mapToLong(DepthStats::frontierSize).max().orElse(0);
+    }
+
+    public long visitedSize() {
+        return depths.isEmpty() ? 0 : depths.getLast().visitedSize();
+    }
+
+    public double movesPerNode() {
+        long expanded = nodesExpanded();
+        return expanded == 0 ? 0 : (double) movesGenerated() / expanded;
+    }
+
+    public Duration wallTime() {
+        return depths.stream().map(DepthStats::wallTime).reduce(Duration.ZERO, Duration::plus);
+    }
+}
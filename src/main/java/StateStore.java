@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * Append-only store of explored states: the key of every state and the index of the state it was reached from,
+ * at 12 bytes per state instead of a {@link Board} per state. Puzzles whose keys do not fit in a {@code long} store
+ * wide keys of a fixed number of words instead.
+ */
+public final class StateStore {
+
+    public static final int NO_PARENT = -1;
+
+    private final int keyWords;
+    private long[] keys;
+    private int[] parents;
+    private int size;
+
+    public StateStore(int expectedSize) {
+        this(expectedSize, 1);
+    }
+
+    /**
+     * @param keyWords words per key, see {@link PlacementTable#keyWords()}
+     */
+    public StateStore(int expectedSize, int keyWords) {
+        if (keyWords < 1) {
+            throw new IllegalArgumentException(String.format("Keys need at least one word, got %d.", keyWords));
+        }
+        int capacity = Math.max(16, expectedSize);
+        this.keyWords = keyWords;
+        this.keys = new long[Math.multiplyExact(capacity, keyWords)];
+        this.parents = new int[capacity];
+    }
+
+    /**
+     * Appends a state and returns its index.
+     */
+    public int add(long key, int parent) {
+        ensureCapacity();
+        keys[size] = key;
+        parents[size] = parent;
+        return size++;
+    }
+
+    /**
+     * Appends a state with the wide key in the first words of the array and returns its index.
+     */
+    public int add(long[] key, int parent) {
+        ensureCapacity();
+        System.arraycopy(key, 0, keys, size * keyWords, keyWords);
+        parents[size] = parent;
+        return size++;
+    }
+
+    private void ensureCapacity() {
+        if (size == parents.length) {
+            int maxSize = (Integer.MAX_VALUE - 8) / keyWords;
+            if (size >= maxSize) {
+                throw new IllegalStateException("State store is full.");
+            }
+            int capacity = (int) Math.min(maxSize, (long) size * 2);
+            keys = Arrays.copyOf(keys, capacity * keyWords);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+    }
+
+    /**
+     * Key of a store of single word keys.
+     */
+    public long key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Copies the wide key of the state to the first words of the array.
+     */
+    public void key(int index, long[] into) {
+        System.arraycopy(keys, index * keyWords, into, 0, keyWords);
+    }
+
+    public int parent(int index) {
+        return parents[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Keys of the states from the root to the given index, following parent indices without recursion. Wide keys
+     * follow each other, a fixed number of words each.
+     */
+    public long[] path(int index) {
+        int length = 0;
+        for (int i = index; i != NO_PARENT; i = parents[i]) {
+            length++;
+        }
+        var path = new long[length * keyWords];
+        for (int i = index; i != NO_PARENT; i = parents[i]) {
+            System.arraycopy(keys, i * keyWords, path, --length * keyWords, keyWords);
+        }
+        return path;
+    }
+}
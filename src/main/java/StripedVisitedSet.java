@@ -0,0 +1,53 @@
+/**
+ * Thread-safe set of state keys, split into independently locked {@link VisitedSet} stripes so that threads
+ * adding different keys rarely wait on each other.
+ */
+public final class StripedVisitedSet {
+
+    private final VisitedSet[] stripes;
+    private final int stripeShift;
+
+    public StripedVisitedSet(int stripeCount, long expectedSize) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException(String.format("Stripe count must be positive, got %d.", stripeCount));
+        }
+        int stripeBits = Integer.SIZE - Integer.numberOfLeadingZeros(stripeCount - 1);
+        this.stripes = new VisitedSet[1 << stripeBits];
+        this.stripeShift = Long.SIZE - stripeBits;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = VisitedSet.onHeap(expectedSize / stripes.length);
+        }
+    }
+
+    /**
+     * Adds the key, returning false if it was already present.
+     */
+    public boolean add(long key) {
+        var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.add(key);
+        }
+    }
+
+    public boolean contains(long key) {
+        var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.contains(key);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private VisitedSet stripeFor(long key) {
+        // Fibonacci hashing: the top bits of the product pick the stripe
+        return stripes.length == 1 ? stripes[0] : stripes[(int) ((key * 0x9E3779B97F4A7C15L) >>> stripeShift)];
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.Arrays;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tests as many placements per instruction as the CPU has {@code long} lanes. The lane count is a power of two of
+ * at most 64, so the lanes of one step always land in the same word of the bitset.
+ */
+final class VectorPlacementFilter implements PlacementFilter {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void legal(long[] masks, long others, long[] catSafe, long[] legal) {
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(masks.length);
+        Arrays.fill(legal, 0, catSafe.length, 0);
+        int p = 0;
+        for (; p < bound; p += lanes) {
+            var free = LongVector.fromArray(SPECIES, masks, p).and(others).compare(VectorOperators.EQ, 0L);
+            legal[p >>> 6] |= free.toLong() << p;
+        }
+        for (; p < masks.length; p++) {
+            if ((masks[p] & others) == 0) {
+                legal[p >>> 6] |= 1L << p;
+            }
+        }
+        for (int w = 0; w < catSafe.length; w++) {
+            legal[w] &= catSafe[w];
+        }
+    }
+}
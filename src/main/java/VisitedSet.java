@@ -0,0 +1,238 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Set of primitive {@code long} state keys using open addressing with linear probing, so no key is ever boxed.
+ * The slots live either in a {@code long[]} on the heap or in direct buffers outside it; both double in size
+ * once they are three quarters full.
+ * <p>
+ * Direct buffers are only freed by the garbage collector once they are unreachable, which may be long after a
+ * search is done with them, so an off-heap set frees its buffers when it grows and when it is closed. A closed set
+ * must not be used any more.
+ */
+public final class VisitedSet implements AutoCloseable {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // a direct buffer holds at most Integer.MAX_VALUE bytes, so larger off-heap sets are split over several
+    private static final int CHUNK_BITS = 27;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final long EMPTY = 0L;
+    // sun.misc.Unsafe#invokeCleaner, or null if this JVM does not offer it and direct buffers are left to the GC
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private interface Slots {
+        long get(int index);
+
+        void set(int index, long key);
+
+        default void free() {
+        }
+    }
+
+    private record HeapSlots(long[] slots) implements Slots {
+        @Override
+        public long get(int index) {
+            return slots[index];
+        }
+
+        @Override
+        public void set(int index, long key) {
+            slots[index] = key;
+        }
+    }
+
+    private static final class DirectSlots implements Slots {
+        private final ByteBuffer[] buffers;
+        private final LongBuffer[] chunks;
+
+        private DirectSlots(int capacity) {
+            int chunkCount = Math.max(1, capacity >>> CHUNK_BITS);
+            this.buffers = new ByteBuffer[chunkCount];
+            this.chunks = new LongBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(Math.min(capacity, 1 << CHUNK_BITS) * Long.BYTES).order(ByteOrder.nativeOrder());
+                chunks[i] = buffers[i].asLongBuffer();
+            }
+        }
+
+        @Override
+        public long get(int index) {
+            return chunks[index >>> CHUNK_BITS].get(index & CHUNK_MASK);
+        }
+
+        @Override
+        public void set(int index, long key) {
+            chunks[index >>> CHUNK_BITS].put(index & CHUNK_MASK, key);
+        }
+
+        @Override
+        public void free() {
+            for (int i = 0; i < buffers.length; i++) {
+                var buffer = buffers[i];
+                // drop the views first, so nothing reaches the memory once it is freed
+                buffers[i] = null;
+                chunks[i] = null;
+                if (buffer != null && INVOKE_CLEANER != null) {
+                    try {
+                        INVOKE_CLEANER.invokeExact(buffer);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException("Could not free a direct buffer.", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private final IntFunction<Slots> allocator;
+    private Slots slots;
+    private int capacity;
+    private int resizeThreshold;
+    private long size;
+    // the empty marker cannot be stored in a slot, so its presence is tracked separately
+    private boolean containsEmpty;
+
+    private VisitedSet(long expectedSize, IntFunction<Slots> allocator) {
+        this.allocator = allocator;
+        allocate(capacityFor(expectedSize));
+    }
+
+    public static VisitedSet onHeap(long expectedSize) {
+        return new VisitedSet(expectedSize, capacity -> new HeapSlots(new long[capacity]));
+    }
+
+    /**
+     * Set whose slots live outside the heap, until it is {@linkplain #close() closed}.
+     */
+    public static VisitedSet offHeap(long expectedSize) {
+        return new VisitedSet(expectedSize, DirectSlots::new);
+    }
+
+    /**
+     * Adds the key, returning false if it was already present.
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = capacity - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            long existing = slots.get(index);
+            if (existing == key) {
+                return false;
+            }
+            if (existing == EMPTY) {
+                slots.set(index, key);
+                size++;
+                if (size > resizeThreshold) {
+                    grow();
+                }
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmpty;
+        }
+        int mask = capacity - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            long existing = slots.get(index);
+            if (existing == key) {
+                return true;
+            }
+            if (existing == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Frees the slots of an off-heap set right away rather than whenever the garbage collector gets to them.
+     */
+    @Override
+    public void close() {
+        if (slots != null) {
+            slots.free();
+            slots = null;
+        }
+    }
+
+    private void grow() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException(String.format("Visited set cannot grow beyond %d slots.", MAX_CAPACITY));
+        }
+        var oldSlots = slots;
+        var oldCapacity = capacity;
+        allocate(capacity * 2);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            long key = oldSlots.get(i);
+            if (key != EMPTY) {
+                int index = hash(key) & mask;
+                while (slots.get(index) != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots.set(index, key);
+            }
+        }
+        oldSlots.free();
+    }
+
+    private void allocate(int capacity) {
+        this.slots = allocator.apply(capacity);
+        this.capacity = capacity;
+        this.resizeThreshold = capacity / 4 * 3;
+    }
+
+    private int capacityFor(long expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, expectedSize + expectedSize / 3 + 1);
+        long capacity = Long.highestOneBit(needed - 1) << 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Expected size %d exceeds the maximum capacity of %d slots.", expectedSize, MAX_CAPACITY));
+        }
+        return (int) capacity;
+    }
+
+    private static int hash(long key) {
+        // finalisation step of MurmurHash3, spreads the packed placement bits over the whole word
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            var unsafeClass = Class.forName("sun.misc.Unsafe");
+            var field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Set of wide keys of a fixed number of words, see {@link PlacementTable#keyWords()}, using open addressing with
+ * linear probing like {@link VisitedSet}. Keys are compared word by word, so two keys are only the same if all
+ * their words are. The keys follow each other in a single array and each slot holds the index of its key plus one.
+ */
+public final class WideKeySet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int EMPTY = 0;
+
+    private final int keyWords;
+    private long[] keys;
+    private int[] slots;
+    private int resizeThreshold;
+    private int size;
+
+    /**
+     * @param keyWords words per key, see {@link PlacementTable#keyWords()}
+     */
+    public WideKeySet(int keyWords, int expectedSize) {
+        if (keyWords < 1) {
+            throw new IllegalArgumentException(String.format("Keys need at least one word, got %d.", keyWords));
+        }
+        long needed = Math.max(MIN_CAPACITY, expectedSize + expectedSize / 3L + 1);
+        long capacity = Long.highestOneBit(needed - 1) << 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Expected size %d exceeds the maximum capacity of %d slots.", expectedSize, MAX_CAPACITY));
+        }
+        this.keyWords = keyWords;
+        this.keys = new long[Math.multiplyExact(Math.max(MIN_CAPACITY, expectedSize), keyWords)];
+        allocate((int) capacity);
+    }
+
+    /**
+     * Adds the key in the words of the array from the offset, returning false if it was already present.
+     */
+    public boolean add(long[] key, int offset) {
+        int mask = slots.length - 1;
+        for (int index = (int) hash(key, offset, keyWords) & mask; ; index = (index + 1) & mask) {
+            int slot = slots[index];
+            if (slot == EMPTY) {
+                if (size == keys.length / keyWords) {
+                    int maxSize = (Integer.MAX_VALUE - 8) / keyWords;
+                    if (size >= maxSize) {
+                        throw new IllegalStateException("Wide key set is full.");
+                    }
+                    keys = Arrays.copyOf(keys, (int) Math.min(maxSize, (long) size * 2) * keyWords);
+                }
+                System.arraycopy(key, offset, keys, size * keyWords, keyWords);
+                slots[index] = ++size;
+                if (size > resizeThreshold) {
+                    grow();
+                }
+                return true;
+            }
+            if (Arrays.equals(keys, (slot - 1) * keyWords, slot * keyWords, key, offset, offset + keyWords)) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(long[] key, int offset) {
+        return indexOf(key, offset) >= 0;
+    }
+
+    /**
+     * Index of the key in the order keys were added, or -1 if it is absent.
+     */
+    public int indexOf(long[] key, int offset) {
+        int mask = slots.length - 1;
+        for (int index = (int) hash(key, offset, keyWords) & mask; ; index = (index + 1) & mask) {
+            int slot = slots[index];
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (Arrays.equals(keys, (slot - 1) * keyWords, slot * keyWords, key, offset, offset + keyWords)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        if (slots.length >= MAX_CAPACITY) {
+            throw new IllegalStateException(String.format("Wide key set cannot grow beyond %d slots.", MAX_CAPACITY));
+        }
+        allocate(slots.length * 2);
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int index = (int) hash(keys, i * keyWords, keyWords) & mask;
+            while (slots[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = i + 1;
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.slots = new int[capacity];
+        this.resizeThreshold = capacity / 4 * 3;
+    }
+
+    /**
+     * Hash of the key spread over all bits, the same for keys that are the same word by word.
+     */
+    static long hash(long[] key, int offset, int keyWords) {
+        long res = 0;
+        for (int i = offset; i < offset + keyWords; i++) {
+            // finalisation step of MurmurHash3 after folding in each word
+            res ^= key[i];
+            res ^= res >>> 33;
+            res *= 0xff51afd7ed558ccdL;
+            res ^= res >>> 33;
+            res *= 0xc4ceb9fe1a85ec53L;
+            res ^= res >>> 33;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchSolverTest {
+
+    @Test
+    public void solvesEveryPuzzle() throws InterruptedException {
+        var puzzles = Stream.of(
+                new BatchSolver.Puzzle("starter-1", PuzzleCatalogue.STARTER_1.rows()),
+                new BatchSolver.Puzzle("master-39", PuzzleCatalogue.MASTER_39.rows()),
+                new BatchSolver.Puzzle("wizard-60", PuzzleCatalogue.WIZARD_60.rows()),
+                new BatchSolver.Puzzle("unsolvable", List.of("a@")),
+                new BatchSolver.Puzzle("invalid", List.of("a#")));
+
+        var results = new HashMap<String, BatchSolver.Result>();
+        new BatchSolver(2, Duration.ofMinutes(1)).solveAll(puzzles, result -> results.put(result.id(), result));
+
+        assertEquals(5, results.size());
+        assertEquals(PuzzleCatalogue.STARTER_1.optimalMoves(), results.get("starter-1").solution().movesMade());
+        assertEquals(PuzzleCatalogue.MASTER_39.optimalMoves(), results.get("master-39").solution().movesMade());
+        assertEquals(PuzzleCatalogue.WIZARD_60.optimalMoves(), results.get("wizard-60").solution().movesMade());
+        assertEquals(BatchSolver.Status.UNSOLVABLE, results.get("unsolvable").status());
+        assertEquals(BatchSolver.Status.FAILED, results.get("invalid").status());
+    }
+
+    @Test
+    public void slowPuzzleTimesOutWithoutBlockingOthers() throws InterruptedException {
+        var solver = new Solver();
+        var batch = new BatchSolver(2, Duration.ofMillis(200), board -> {
+            if (board.rows() == 1) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.onSpinWait();
+                }
+                throw new CancellationException();
+            }
+            return solver.findSolution(board);
+        });
+        var puzzles = Stream.of(
+                new BatchSolver.Puzzle("stuck", List.of("a@")),
+                new BatchSolver.Puzzle("starter-1", PuzzleCatalogue.STARTER_1.rows()));
+
+        var order = new ArrayList<BatchSolver.Result>();
+        batch.solveAll(puzzles, order::add);
+
+        assertEquals("starter-1", order.get(0).id());
+        assertEquals(BatchSolver.Status.SOLVED, order.get(0).status());
+        assertEquals(BatchSolver.Status.TIMED_OUT, order.get(1).status());
+    }
+
+    @Test
+    public void timeoutStartsWhenThePuzzleRuns() throws InterruptedException {
+        // the first solve ignores its interrupt and keeps the only solver thread past its timeout; the second waits
+        // for it and then runs for less than the timeout, but longer than what remains of it counted from the queue
+        var solver = new Solver();
+        var batch = new BatchSolver(1, Duration.ofMillis(300), board -> {
+            long end = System.nanoTime() + Duration.ofMillis(board.rows() == 1 ? 500 : 150).toNanos();
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            return board.rows() == 1 ? null : solver.findSolution(board);
+        });
+        var puzzles = Stream.of(
+                new BatchSolver.Puzzle("stubborn", List.of("a@")),
+                new BatchSolver.Puzzle("starter-1", PuzzleCatalogue.STARTER_1.rows()));
+
+        var results = new HashMap<String, BatchSolver.Result>();
+        batch.solveAll(puzzles, result -> results.put(result.id(), result));
+
+        assertEquals(BatchSolver.Status.TIMED_OUT, results.get("stubborn").status());
+        assertEquals(BatchSolver.Status.SOLVED, results.get("starter-1").status());
+        assertTrue(results.get("starter-1").elapsed().compareTo(Duration.ofMillis(300)) > 0);
+    }
+
+    @Test
+    public void puzzlesQueuedBehindASolveThatNeverStopsTimeOut() throws InterruptedException {
+        // the first solve ignores its interrupt until the test ends, so the second never gets the only solver thread
+        var release = new CountDownLatch(1);
+        var batch = new BatchSolver(1, Duration.ofMillis(100), board -> {
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignored on purpose
+                }
+            }
+            return null;
+        });
+        var puzzles = Stream.of(
+                new BatchSolver.Puzzle("stuck", List.of("a@")),
+                new BatchSolver.Puzzle("queued", List.of("a@")));
+
+        var results = new HashMap<String, BatchSolver.Result>();
+        try {
+            batch.solveAll(puzzles, result -> results.put(result.id(), result));
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(BatchSolver.Status.TIMED_OUT, results.get("stuck").status());
+        assertEquals(BatchSolver.Status.TIMED_OUT, results.get("queued").status());
+    }
+
+    @Test
+    public void consumerExceptionsAreRethrown() {
+        var taken = new AtomicInteger();
+        var puzzles = Stream.generate(() -> new BatchSolver.Puzzle("unsolvable-" + taken.incrementAndGet(), List.of("a@")))
+                .limit(100);
+        var reported = new AtomicInteger();
+
+        var thrown = assertThrows(IllegalStateException.class, () -> new BatchSolver(1, Duration.ofMinutes(1)).solveAll(puzzles, result -> {
+            if (reported.incrementAndGet() == 3) {
+                throw new IllegalStateException("Disk full.");
+            }
+        }));
+
+        assertEquals("Disk full.", thrown.getMessage());
+        assertTrue(taken.get() < 100);
+    }
+
+    @Test
+    public void neverExceedsConcurrency() throws InterruptedException {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var solver = new Solver();
+        var batch = new BatchSolver(3, Duration.ofMinutes(1), board -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return solver.findSolution(board);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        var puzzles = Stream.generate(() -> new BatchSolver.Puzzle("master-42", PuzzleCatalogue.MASTER_42.rows()))
+                .limit(20);
+        var solved = new AtomicInteger();
+        batch.solveAll(puzzles, result -> solved.incrementAndGet());
+
+        assertEquals(20, solved.get());
+        assertTrue(maxRunning.get() <= 3);
+    }
+}
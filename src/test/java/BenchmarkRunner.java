@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Benchmarks for parsing, move generation and full solves over the {@link PuzzleCatalogue}, reporting throughput,
+ * latency percentiles, allocated bytes per operation and garbage collection activity.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:java}. The optional arguments are a filter on benchmark names
+ * and a CSV file to write the results to, e.g. {@code -Dexec.args="solve target/benchmarks.csv"}. Move generation
+ * uses the Vector API when the JVM runs with {@code --add-modules jdk.incubator.vector}, and can be forced back to
+ * the scalar path with {@code -Dcatsandboxes.vector=false} to compare the two.
+ * JMH cannot generate harness code for classes in the default package, which is why this is a plain runner.
+ */
+public class BenchmarkRunner {
+
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASUREMENT_NANOS = 5_000_000_000L;
+    private static final long TARGET_BATCH_NANOS = 2_000;
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    // results are written here so the JIT cannot drop the benchmarked calls
+    private static volatile Object objectSink;
+    private static volatile long longSink;
+
+    @FunctionalInterface
+    private interface Operation {
+        long run();
+    }
+
+    private record Benchmark(String name, Function<PuzzleCatalogue, Operation> setup) {}
+
+    private record Result(String benchmark, PuzzleCatalogue puzzle, double opsPerSecond, double[] percentilesMicros,
+                          double bytesPerOp, long gcCount, long gcMillis) {}
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999, 1.0};
+
+    private static final List<Benchmark> BENCHMARKS = List.of(
+            new Benchmark("Board.from", puzzle -> () -> consume(Board.from(puzzle.rows()))),
+            new Benchmark("Board.getMovesPerPiece", puzzle -> {
+                var board = puzzle.board();
+                return () -> consume(board.getMovesPerPiece());
+            }),
+            new Benchmark("PlacementTable.forEachDistinctMove", puzzle -> {
+                var board = puzzle.board();
+                var table = board.placementTable();
+                var placements = board.placements();
+                long occupied = table.occupancy(placements);
+                long[] count = {0};
+                return () -> {
+                    table.forEachDistinctMove(placements, occupied, (piece, placement) -> count[0]++);
+                    return count[0];
+                };
+            }),
+            new Benchmark("MoveSet.of", puzzle -> {
+                var board = puzzle.board();
+                return () -> consume(MoveSet.of(board.placementTable(), board.placements(), board.occupied()));
+            }),
+            new Benchmark("Board.makeMove", puzzle -> {
+                var board = puzzle.board();
+                var move = board.getMovesPerPiece().values().iterator().next().getFirst();
+                return () -> consume(board.makeMove(move));
+            }),
+            new Benchmark("Board.encode", puzzle -> {
+                var board = puzzle.board();
+                return board::encode;
+            }),
+            new Benchmark("Piece.getRotatedVariants", puzzle -> {
+                var piece = puzzle.board().pieces().getFirst();
+                return () -> consume(piece.getRotatedVariants());
+            }),
+            new Benchmark("Solver.solve", puzzle -> {
+                var board = puzzle.board();
+                return () -> consume(new Solver().solve(board));
+            }));
+
+    public static void main(String[] args) throws IOException {
+        var filter = args.length > 0 ? args[0].toLowerCase(Locale.ROOT) : "";
+        var results = new ArrayList<Result>();
+
+        printHeader(System.out);
+        for (Benchmark benchmark : BENCHMARKS) {
+            if (!benchmark.name().toLowerCase(Locale.ROOT).contains(filter)) {
+                continue;
+            }
+            for (PuzzleCatalogue puzzle : PuzzleCatalogue.values()) {
+                var result = run(benchmark, puzzle);
+                print(System.out, result);
+                results.add(result);
+            }
+        }
+        if (args.length > 1) {
+            writeCsv(Path.of(args[1]), results);
+        }
+    }
+
+    private static Result run(Benchmark benchmark, PuzzleCatalogue puzzle) {
+        var operation = benchmark.setup().apply(puzzle);
+
+        // warm up, and size batches so timer overhead is small next to the measured work
+        long ops = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < WARMUP_NANOS) {
+            longSink = operation.run();
+            ops++;
+        }
+        int batch = (int) Math.max(1, Math.min(1 << 16, TARGET_BATCH_NANOS * ops / WARMUP_NANOS));
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var samples = new long[MAX_SAMPLES];
+        int sampleCount = 0;
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        ops = 0;
+        start = System.nanoTime();
+        long now = start;
+        while (now - start < MEASUREMENT_NANOS && sampleCount < MAX_SAMPLES) {
+            long acc = 0;
+            for (int i = 0; i < batch; i++) {
+                acc += operation.run();
+            }
+            long end = System.nanoTime();
+            longSink = acc;
+            samples[sampleCount++] = (end - now) / batch;
+            ops += batch;
+            now = end;
+        }
+        long elapsed = now - start;
+
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(samples, 0, sampleCount);
+        var percentiles = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            int index = (int) Math.min(sampleCount - 1, Math.ceil(PERCENTILES[i] * sampleCount) - 1);
+            percentiles[i] = samples[Math.max(0, index)] / 1_000.0;
+        }
+        return new Result(benchmark.name(), puzzle, ops * 1e9 / elapsed, percentiles, (double) allocated / ops,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    private static long consume(Object result) {
+        objectSink = result;
+        return 0;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static void printHeader(PrintStream out) {
+        out.printf("%-26s %-13s %14s %10s %10s %10s %10s %10s %12s %6s %7s%n", "benchmark", "puzzle", "ops/s",
+                "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "B/op", "gcs", "gc ms");
+    }
+
+    private static void print(PrintStream out, Result result) {
+        var p = result.percentilesMicros();
+        out.printf(Locale.ROOT, "%-26s %-13s %14.1f %10.3f %10.3f %10.3f %10.3f %10.3f %12.1f %6d %7d%n",
+                result.benchmark(), result.puzzle(), result.opsPerSecond(), p[0], p[1], p[2], p[3], p[4],
+                result.bytesPerOp(), result.gcCount(), result.gcMillis());
+    }
+
+    private static void writeCsv(Path path, List<Result> results) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add("benchmark,puzzle,ops_per_second,p50_us,p90_us,p99_us,p999_us,max_us,bytes_per_op,gc_count,gc_ms");
+        for (Result result : results) {
+            var p = result.percentilesMicros();
+            lines.add(String.format(Locale.ROOT, "%s,%s,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%d,%d", result.benchmark(),
+                    result.puzzle(), result.opsPerSecond(), p[0], p[1], p[2], p[3], p[4], result.bytesPerOp(),
+                    result.gcCount(), result.gcMillis()));
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, lines);
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class BidirectionalSolverTest {
+
+    @Test
+    public void findsOptimalSolutions() {
+        var solver = new BidirectionalSolver();
+        for (var puzzle : List.of(PuzzleCatalogue.STARTER_1, PuzzleCatalogue.MASTER_39, PuzzleCatalogue.MASTER_42, PuzzleCatalogue.WIZARD_60)) {
+            var solution = solver.findSolution(puzzle.board());
+            assertEquals(puzzle.optimalMoves(), solution.movesMade());
+            assertTrue(solution.finalBoard().isFinished());
+        }
+    }
+
+    @Test
+    public void enumeratesEveryGoal() {
+        // the box covers the cat with the other square on any of its four sides, and the single square takes any
+        // of the seven cells left
+        var board = Board.from(List.of("aA.", ".@.", "b.."));
+        var goals = BidirectionalSolver.goals(board, 100);
+
+        assertEquals(4 * 7, goals.length);
+        var table = board.placementTable();
+        var placements = new int[table.pieceCount()];
+        for (long goal : goals) {
+            table.decode(goal, placements);
+            assertTrue(table.isFinished(table.occupancy(placements)));
+        }
+    }
+
+    @Test
+    public void fallsBackAboveTheGoalLimit() {
+        var puzzle = List.of("aA.", ".@.", "b..");
+        var solution = new BidirectionalSolver(10).findSolution(Board.from(puzzle));
+
+        assertNull(BidirectionalSolver.goals(Board.from(puzzle), 10));
+        assertEquals(new Solver().findSolution(Board.from(puzzle)).movesMade(), solution.movesMade());
+    }
+
+    @Test
+    public void fallsBackBeyondSixtyFourCells() {
+        var puzzle = List.of("aA" + ".".repeat(38), ".".repeat(39) + "@");
+        var solution = new BidirectionalSolver().findSolution(Board.from(puzzle));
+
+        assertNull(BidirectionalSolver.goals(Board.from(puzzle), 10));
+        assertEquals(1, solution.movesMade());
+    }
+
+    @Test
+    public void unsolvableReturnsNull() {
+        assertNull(new BidirectionalSolver().solve(Board.from(List.of("a@"))));
+        assertNull(new BidirectionalSolver().solve(Board.from(List.of("aA.", "...", ".@@"))));
+    }
+
+    @Test
+    public void exactCoverFindsEveryCover() {
+        // Knuth's example, whose only cover is rows 0, 3 and 4
+        var cover = new ExactCover(7, 0);
+        cover.addRow(2, 4, 5);
+        cover.addRow(0, 3, 6);
+        cover.addRow(1, 2, 5);
+        cover.addRow(0, 3);
+        cover.addRow(1, 6);
+        cover.addRow(3, 4, 6);
+        var covers = new ArrayList<List<Integer>>();
+        cover.solve(rows -> covers.add(Arrays.stream(rows).sorted().boxed().toList()));
+
+        assertEquals(List.of(List.of(0, 3, 4)), covers);
+    }
+}
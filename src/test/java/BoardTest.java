@@ -1,6 +1,8 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
@@ -124,4 +126,121 @@ public class BoardTest {
         assertSame(maybePiece1.get(), maybePiece2.get());
     }
 
+    @Test
+    public void encodeIsExact() {
+        var board = Board.from(List.of("aa", ".."));
+        var piece = board.pieces().getFirst();
+
+        var moved = board.makeMove(piece.withLocation(1, 0));
+        var rotated = board.makeMove(piece.rotateCounterClockwise().withLocation(1, 0));
+        var movedBack = moved.makeMove(piece);
+
+        assertNotEquals(board.encode(), moved.encode());
+        assertNotEquals(moved.encode(), rotated.encode());
+        assertEquals(board.encode(), movedBack.encode());
+    }
+
+    @Test
+    public void hashIsKeptUpToDateByMakeMove() {
+        var board = Board.from(List.of("aa.", "..b", "..."));
+        var a = board.getPieceAt(0, 0).orElseThrow();
+        var b = board.getPieceAt(1, 2).orElseThrow();
+
+        var moved = board.makeMove(a.withLocation(2, 0)).makeMove(b.withLocation(0, 0));
+        var fresh = Board.from(List.of("b..", "...", "aa."));
+        var movedBack = moved.makeMove(b).makeMove(a);
+
+        assertEquals(fresh.hash(), moved.hash());
+        assertEquals(board.hash(), movedBack.hash());
+        assertNotEquals(board.hash(), moved.hash());
+    }
+
+    @Test
+    public void hashIgnoresSymmetricVariants() {
+        var board = Board.from(List.of("a.b", "..."));
+        var swapped = Board.from(List.of("b.a", "..."));
+        var square = Board.from(List.of("a..", "..."));
+        var rotated = square.makeMove(square.pieces().getFirst().rotateCounterClockwise());
+
+        assertEquals(board.hash(), swapped.hash());
+        assertEquals(square.hash(), rotated.hash());
+    }
+
+    @Test
+    public void bitboardLookups() {
+        var board = Board.from(List.of("@aA", "b.@"));
+
+        assertTrue(board.isCat(0, 0));
+        assertTrue(board.isCat(1, 2));
+        assertFalse(board.isCat(0, 1));
+        assertFalse(board.isCat(5, 5));
+        assertTrue(board.getPieceAt(0, 2).isPresent());
+        assertFalse(board.getPieceAt(1, 1).isPresent());
+        assertFalse(board.isFinished());
+    }
+
+    @Test
+    public void moreThanTwentySixPiecesRoundTrip() {
+        var letters = "abcdefghijklmnopqrstuvwxyzàáâãäåæçèéêë";
+        var text = List.of(letters, letters.toUpperCase());
+
+        var board = Board.from(text);
+
+        assertEquals(38, board.pieces().size());
+        assertEquals(26, board.getPieceAt(1, 26).orElseThrow().id());
+        assertEquals(String.join("\n", text), board.toString());
+    }
+
+    @Test
+    public void parsingTheSamePuzzleGivesTheSameIdsAndHash() {
+        var text = List.of("@abB@", "Aa@b.", ".aAb.", "@cdDd", "cCc@d");
+
+        var first = Board.from(text);
+        var second = Board.from(text);
+
+        assertEquals(first.pieces(), second.pieces());
+        assertEquals(first.hash(), second.hash());
+        assertEquals(first.encode(), second.encode());
+    }
+
+    @Test
+    public void builtBoardsRejectDuplicateIds() {
+        var a = new PieceBuilder(0).add(0, 0, Square.Type.BOX).build();
+        var b = new PieceBuilder(0).add(1, 1, Square.Type.BOX).build();
+
+        assertThrows(IllegalArgumentException.class, () -> Board.of(2, 2, List.of(a, b), List.of()));
+    }
+
+    @Test
+    public void widePuzzlesAreEncodedInSeveralWords() {
+        // eleven single squares with 40 placements each need 66 bits
+        var wide = Board.from(List.of("ABcdefgh", "ijk.....", "........", "........", "......@@"));
+        var compact = Board.from(List.of("@abB@", "Aa@b.", ".aAb.", "@cdDd", "cCc@d"));
+
+        assertThrows(IllegalStateException.class, wide::encode);
+        var key = wide.encodeWide();
+        assertEquals(2, key.length);
+        var placements = new int[wide.pieces().size()];
+        wide.placementTable().decode(key, 0, placements);
+        assertEquals(Board.of(wide.placementTable(), placements).toString(), wide.toString());
+        assertEquals(1, compact.encodeWide().length);
+        assertEquals(compact.encode(), compact.encodeWide()[0]);
+    }
+
+    @Test
+    public void raggedRowsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Board.from(List.of("..", "aaA")));
+        assertThrows(IllegalArgumentException.class, () -> Board.from(List.of("...", "@.")));
+        assertThrows(IllegalArgumentException.class, () -> Board.from(List.of()));
+    }
+
+    @Test
+    public void builtBoardsRejectPiecesAndCatsOutsideTheBoard() {
+        var piece = new PieceBuilder(0).add(0, 1, Square.Type.BOX).add(0, 2, Square.Type.NORMAL).build();
+
+        assertThrows(IllegalArgumentException.class, () -> Board.of(2, 2, List.of(piece), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> Board.of(2, 2, List.of(), List.of(new Cat(0, 2))));
+        assertThrows(IllegalArgumentException.class, () -> Board.of(2, 2, List.of(), List.of(new Cat(-1, 0))));
+    }
+
 }
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DistanceTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void distancesMatchTheSolver() {
+        for (var puzzle : List.of(PuzzleCatalogue.STARTER_1, PuzzleCatalogue.MASTER_39, PuzzleCatalogue.MASTER_42, PuzzleCatalogue.WIZARD_60)) {
+            var board = puzzle.board();
+            var distances = DistanceTable.build(board);
+            int optimal = new Solver().findSolution(board).movesMade();
+
+            assertEquals(optimal, distances.distance(board));
+            var solution = distances.findSolution(board);
+            assertEquals(optimal, solution.movesMade());
+            assertTrue(solution.finalBoard().isFinished());
+        }
+    }
+
+    @Test
+    public void answersForEveryPositionOfThePuzzle() {
+        var board = PuzzleCatalogue.MASTER_42.board();
+        var distances = DistanceTable.build(PuzzleCatalogue.MASTER_42.board());
+
+        // walk away from the start, asking for positions the table was not built from
+        for (int step = 0; step < 5; step++) {
+            var moves = board.getMovesPerPiece().values().stream().flatMap(List::stream).toList();
+            board = board.makeMove(moves.get(step % moves.size()));
+            var solution = new Solver().findSolution(board);
+            assertEquals(solution.movesMade(), distances.distance(board));
+            var best = board.makeMove(distances.bestMove(board));
+            assertEquals(distances.distance(board) - 1, distances.distance(best));
+        }
+    }
+
+    @Test
+    public void unsolvablePuzzlesHaveNoDistance() {
+        var board = Board.from(List.of("a@"));
+        var distances = DistanceTable.build(board);
+
+        assertEquals(0, distances.size());
+        assertEquals(DistanceTable.UNSOLVABLE, distances.distance(board));
+        assertNull(distances.bestMove(board));
+        assertNull(distances.findSolution(board));
+    }
+
+    @Test
+    public void givesUpAboveThePositionLimit() {
+        var board = PuzzleCatalogue.WIZARD_60.board();
+        var distances = DistanceTable.build(board);
+        int positions = distances.positions();
+
+        assertTrue(positions > distances.size());
+        assertNull(DistanceTable.build(board, positions - 1));
+        assertEquals(distances.size(), DistanceTable.build(board, positions).size());
+    }
+
+    @Test
+    public void savedTablesLoadForTheSamePuzzleOnly() throws IOException {
+        var file = directory.resolve("wizard-60.dist");
+        var distances = DistanceTable.build(PuzzleCatalogue.WIZARD_60.board());
+        distances.save(file);
+
+        var loaded = DistanceTable.load(PuzzleCatalogue.WIZARD_60.board(), file);
+
+        assertEquals(distances.size(), loaded.size());
+        assertEquals(distances.positions(), loaded.positions());
+        assertEquals(distances.maxDistance(), loaded.maxDistance());
+        assertEquals(33, loaded.distance(PuzzleCatalogue.WIZARD_60.board()));
+        assertThrows(IOException.class, () -> DistanceTable.load(PuzzleCatalogue.MASTER_42.board(), file));
+        assertThrows(IllegalArgumentException.class, () -> loaded.distance(PuzzleCatalogue.MASTER_42.board()));
+    }
+
+    @Test
+    public void savedTablesKeepEveryDistance() throws IOException {
+        // distances of up to 14 moves take a nibble each, leaving 15 to mark positions that cannot be finished
+        for (var puzzle : List.of(PuzzleCatalogue.STARTER_1, PuzzleCatalogue.WIZARD_60)) {
+            var board = puzzle.board();
+            var file = directory.resolve("puzzle.dist");
+            var distances = DistanceTable.build(board);
+            distances.save(file);
+            var loaded = DistanceTable.load(board, file);
+
+            assertEquals(distances.maxDistance(), loaded.maxDistance());
+            for (var position = board; position != null; position = nextOrNull(loaded, position)) {
+                assertEquals(distances.distance(position), loaded.distance(position));
+            }
+        }
+    }
+
+    private static Board nextOrNull(DistanceTable distances, Board board) {
+        var move = distances.bestMove(board);
+        return move == null ? null : board.makeMove(move);
+    }
+}
@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExternalSolverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void findsOptimalSolutionsWithATinyHeapBudget() throws IOException {
+        // 128 keys per run, so every deeper depth is merged from several runs
+        var solver = new ExternalSolver(directory, 1 << 10);
+        for (var puzzle : List.of(PuzzleCatalogue.STARTER_1, PuzzleCatalogue.MASTER_39, PuzzleCatalogue.MASTER_42, PuzzleCatalogue.WIZARD_60)) {
+            var solution = solver.findSolution(puzzle.board());
+            assertEquals(puzzle.optimalMoves(), solution.movesMade());
+            assertTrue(solution.finalBoard().isFinished());
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void solvesBoardsBeyondSixtyFourCellsInMemory() {
+        var solution = new ExternalSolver(directory).findSolution(Board.from(List.of("aA" + ".".repeat(38), ".".repeat(39) + "@")));
+
+        assertEquals(1, solution.movesMade());
+        assertTrue(solution.finalBoard().isFinished());
+    }
+
+    @Test
+    public void unsolvableReturnsNull() {
+        assertNull(new ExternalSolver(directory).solve(Board.from(List.of("a@"))));
+        assertNull(new ExternalSolver(directory).solve(Board.from(List.of("aA.", "...", ".@@"))));
+    }
+}
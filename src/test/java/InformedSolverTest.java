@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.Test;
+
+public class InformedSolverTest {
+
+    @Test
+    public void aStarFindsOptimalSolutions() {
+        var solver = new InformedSolver();
+        assertEquals(4, solver.solve(PuzzleCatalogue.STARTER_1.board()).getMovesMade());
+        assertEquals(7, solver.solve(PuzzleCatalogue.MASTER_39.board()).getMovesMade());
+        assertEquals(11, solver.solve(PuzzleCatalogue.MASTER_42.board()).getMovesMade());
+        assertEquals(33, solver.solve(PuzzleCatalogue.WIZARD_60.board()).getMovesMade());
+    }
+
+    @Test
+    public void idaStarFindsOptimalSolutions() {
+        var solver = new InformedSolver(InformedSolver.Strategy.IDA_STAR);
+        assertEquals(4, solver.solve(PuzzleCatalogue.STARTER_1.board()).getMovesMade());
+        assertEquals(7, solver.solve(PuzzleCatalogue.MASTER_39.board()).getMovesMade());
+        assertEquals(11, solver.solve(PuzzleCatalogue.MASTER_42.board()).getMovesMade());
+        assertEquals(33, solver.solve(PuzzleCatalogue.WIZARD_60.board()).getMovesMade());
+    }
+
+    @Test
+    public void idaStarWithTinyTranspositionTableStaysOptimal() {
+        var solver = new InformedSolver(InformedSolver.Strategy.IDA_STAR, 64);
+        assertEquals(7, solver.solve(PuzzleCatalogue.MASTER_39.board()).getMovesMade());
+    }
+
+    @Test
+    public void heuristicNeverOverestimates() {
+        var board = PuzzleCatalogue.STARTER_1.board();
+        var heuristic = new CatCoverageHeuristic(board.placementTable());
+
+        var estimate = heuristic.estimate(board.occupied());
+        assertTrue(estimate > 0 && estimate <= 4);
+        assertEquals(0, heuristic.estimate(new Solver().solve(board).occupied()));
+    }
+
+    @Test
+    public void unsolvableReturnsNull() {
+        assertNull(new InformedSolver().solve(Board.from(List.of("a@"))));
+        assertNull(new InformedSolver(InformedSolver.Strategy.IDA_STAR).solve(Board.from(List.of("a@"))));
+    }
+
+    @Test
+    public void expandsStatesAgainWhenReachedWithFewerMoves() {
+        // the heuristic is not consistent here, without expanding states again A* finds 6 moves
+        var board = Board.from(List.of("C.AA", "a@.C", "aBAA", "@@@@"));
+
+        assertEquals(5, new Solver().solve(board).getMovesMade());
+        assertEquals(5, new InformedSolver().solve(board).getMovesMade());
+        assertEquals(5, new InformedSolver(InformedSolver.Strategy.IDA_STAR).solve(board).getMovesMade());
+    }
+
+    @Test
+    public void exhaustsUnsolvablePuzzles() {
+        var board = Board.from(List.of("a.@.", ".A@.", "cBB@"));
+
+        for (var strategy : InformedSolver.Strategy.values()) {
+            var result = new InformedSolver(strategy).search(board, SearchBudget.UNLIMITED);
+            assertEquals(Solver.Outcome.UNSOLVABLE, result.outcome());
+            assertNull(result.solution());
+        }
+    }
+
+    @Test
+    public void budgetedSearchStopsWithALowerBound() {
+        var board = PuzzleCatalogue.WIZARD_60.board();
+
+        for (var strategy : InformedSolver.Strategy.values()) {
+            var solver = new InformedSolver(strategy);
+            var nodes = solver.search(board, SearchBudget.UNLIMITED.withMaxNodes(100));
+            assertEquals(Solver.Outcome.NODE_LIMIT, nodes.outcome());
+            assertNull(nodes.solution());
+            assertEquals(100, nodes.stats().nodesExpanded());
+            assertTrue(nodes.lowerBound() > 0 && nodes.lowerBound() <= 33);
+
+            var cancelled = solver.search(board, SearchBudget.UNLIMITED.withCancellation(() -> true));
+            assertEquals(Solver.Outcome.CANCELLED, cancelled.outcome());
+            assertEquals(0, cancelled.closest().movesMade());
+
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class, () -> solver.findSolution(board));
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Test
+    public void solvesBoardsBeyondSixtyFourCells() {
+        var rows = new ArrayList<String>();
+        for (int row = 0; row < 64; row++) {
+            rows.add(".".repeat(64));
+        }
+        rows.set(0, "aA" + ".".repeat(62));
+        rows.set(1, "bB" + ".".repeat(62));
+        rows.set(32, ".".repeat(10) + "@" + ".".repeat(53));
+        rows.set(63, ".".repeat(63) + "@");
+        var board = Board.from(rows);
+
+        assertEquals(2, new InformedSolver().solve(board).getMovesMade());
+        assertEquals(2, new InformedSolver(InformedSolver.Strategy.IDA_STAR).solve(board).getMovesMade());
+    }
+}
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class MoveSetTest {
+
+    @Test
+    public void derivedSetMatchesFullGeneration() {
+        var random = new Random(42);
+        var board = PuzzleCatalogue.GENERATED_12.board();
+        board.moveSet();
+
+        for (int step = 0; step < 200; step++) {
+            var full = MoveSet.of(board.placementTable(), board.placements(), board.occupied());
+            var derived = board.moveSet();
+            assertEquals(moves(full, board, false), moves(derived, board, false));
+            assertEquals(moves(full, board, true), moves(derived, board, true));
+
+            var options = moves(derived, board, false);
+            var chosen = options.get(random.nextInt(options.size()));
+            board = board.makeMove(chosen.get(0), chosen.get(1));
+        }
+    }
+
+    @Test
+    public void setKeepsCurrentPlacementButSkipsItWhenIterating() {
+        var board = Board.from(List.of("a.", ".."));
+        var set = board.moveSet();
+
+        assertTrue(set.contains(0, board.placements()[0]));
+        assertEquals(3, moves(set, board, false).size());
+    }
+
+    private static List<List<Integer>> moves(MoveSet set, Board board, boolean distinct) {
+        var res = new ArrayList<List<Integer>>();
+        PlacementTable.MoveConsumer consumer = (piece, placement) -> res.add(List.of(piece, placement));
+        if (distinct) {
+            set.forEachDistinct(board.placements(), consumer);
+        } else {
+            set.forEach(board.placements(), consumer);
+        }
+        res.sort(Comparator.<List<Integer>>comparingInt(m -> m.get(0)).thenComparingInt(m -> m.get(1)));
+        return res;
+    }
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OptimalSolutionsTest {
+
+    @Test
+    public void countsEveryOrderOfIndependentMoves() {
+        var solutions = OptimalSolutions.find(Board.from(List.of("A.@", "B.@", "C.@")));
+
+        // every box can go to every cat: 3! ways to share the cats, each made in 3! orders
+        assertEquals(3, solutions.moves());
+        assertEquals(36, solutions.count());
+    }
+
+    @Test
+    public void countsSolutionsOfBoardsBeyondSixtyFourCells() {
+        var padding = ".".repeat(22);
+        var solutions = OptimalSolutions.find(Board.from(List.of("A.@" + padding, "B.@" + padding, "C.@" + padding)));
+
+        assertEquals(3, solutions.moves());
+        assertEquals(36, solutions.count());
+        for (var solution : solutions) {
+            assertTrue(solution.finalBoard().isFinished());
+        }
+    }
+
+    @Test
+    public void iteratesEveryOptimalSolutionOnce() {
+        for (var puzzle : List.of(PuzzleCatalogue.STARTER_1, PuzzleCatalogue.MASTER_39, PuzzleCatalogue.MASTER_42)) {
+            var board = puzzle.board();
+            var solutions = OptimalSolutions.find(board);
+            assertEquals(puzzle.optimalMoves(), solutions.moves());
+
+            var seen = new HashSet<List<Long>>();
+            for (var solution : solutions) {
+                assertEquals(puzzle.optimalMoves(), solution.movesMade());
+                assertTrue(solution.finalBoard().isFinished());
+                assertTrue(seen.add(positions(solution)));
+            }
+            assertEquals(solutions.count(), seen.size());
+        }
+    }
+
+    @Test
+    public void rotationsThatLookTheSameDoNotMakeOtherSolutions() {
+        // the box can be turned four ways onto the cat
+        var solutions = OptimalSolutions.find(Board.from(List.of("A.@")));
+
+        assertEquals(1, solutions.moves());
+        assertEquals(1, solutions.count());
+    }
+
+    @Test
+    public void finishedAndUnsolvableBoards() {
+        var finished = OptimalSolutions.find(Board.from(List.of("A")));
+        assertEquals(0, finished.moves());
+        assertEquals(1, finished.count());
+        assertEquals(0, finished.iterator().next().movesMade());
+
+        var unsolvable = OptimalSolutions.find(Board.from(List.of("a@")));
+        assertEquals(OptimalSolutions.UNSOLVABLE, unsolvable.moves());
+        assertEquals(0, unsolvable.count());
+        assertFalse(unsolvable.iterator().hasNext());
+    }
+
+    private static List<Long> positions(Solution solution) {
+        var table = solution.start().placementTable();
+        var res = new ArrayList<Long>();
+        var board = solution.start();
+        for (var move : solution.moves()) {
+            board = board.makeMove(move);
+            res.add(table.canonicalKey(board.encode()));
+        }
+        return res;
+    }
+}
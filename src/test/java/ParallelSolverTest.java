@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelSolverTest {
+
+    @Test
+    public void solveStarter1() {
+        Board board = PuzzleCatalogue.STARTER_1.board();
+
+        var res = new ParallelSolver().solve(board);
+        assertEquals(4, res.getMovesMade());
+    }
+
+    @Test
+    public void solvesBoardsBeyondSixtyFourCells() {
+        var padding = ".".repeat(22);
+        var board = Board.from(List.of("A.@" + padding, "B.@" + padding, "C.@" + padding));
+
+        var solution = new ParallelSolver(new ForkJoinPool(4)).findSolution(board);
+        assertEquals(3, solution.movesMade());
+        assertTrue(solution.finalBoard().isFinished());
+        assertNull(new ParallelSolver().findSolution(Board.from(List.of("a" + ".".repeat(70) + "@"))));
+    }
+
+    @Test
+    public void solveMaster42() {
+        Board board = PuzzleCatalogue.MASTER_42.board();
+
+        var res = new ParallelSolver(new ForkJoinPool(4)).solve(board);
+        assertEquals(11, res.getMovesMade());
+    }
+
+    @Test
+    public void solveWizard60() {
+        Board board = PuzzleCatalogue.WIZARD_60.board();
+
+        var res = new ParallelSolver().solve(board);
+        assertEquals(33, res.getMovesMade());
+    }
+
+    @Test
+    public void unsolvableReturnsNull() {
+        Board board = Board.from(List.of("a@"));
+
+        assertNull(new ParallelSolver().solve(board));
+    }
+
+    @Test
+    public void solveBuiltBoardWithHundredsOfPieces() {
+        // a 20x20 board with 300 single squares in the middle rows and a box domino that has to reach the cat
+        var pieces = new ArrayList<Piece>();
+        for (int id = 0; id < 300; id++) {
+            pieces.add(new PieceBuilder(id).add(2 + id / 20, id % 20, Square.Type.NORMAL).build());
+        }
+        pieces.add(new PieceBuilder(300).add(0, 0, Square.Type.NORMAL).add(0, 1, Square.Type.BOX).build());
+        Board board = Board.of(20, 20, pieces, List.of(new Cat(19, 19)));
+
+        var res = new ParallelSolver().solve(board);
+        assertEquals(1, res.getMovesMade());
+    }
+
+    @Test
+    public void budgetedSearchStopsWithALowerBound() {
+        Board board = PuzzleCatalogue.WIZARD_60.board();
+        var solver = new ParallelSolver(new ForkJoinPool(2));
+
+        var nodes = solver.search(board, SearchBudget.UNLIMITED.withMaxNodes(100));
+        assertEquals(Solver.Outcome.NODE_LIMIT, nodes.outcome());
+        assertNull(nodes.solution());
+        assertTrue(nodes.lowerBound() > 0 && nodes.lowerBound() < 33);
+        assertEquals(100, nodes.stats().nodesExpanded());
+
+        var states = solver.search(board, SearchBudget.UNLIMITED.withMaxStates(50));
+        assertEquals(Solver.Outcome.STATE_LIMIT, states.outcome());
+
+        var cancelled = solver.search(board, SearchBudget.UNLIMITED.withCancellation(() -> true));
+        assertEquals(Solver.Outcome.CANCELLED, cancelled.outcome());
+        assertEquals(0, cancelled.closest().movesMade());
+    }
+
+    @Test
+    public void interruptCancelsTheSearch() {
+        Board board = PuzzleCatalogue.WIZARD_60.board();
+        var solver = new ParallelSolver();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(Solver.Outcome.CANCELLED, solver.search(board, SearchBudget.UNLIMITED).outcome());
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertThrows(CancellationException.class, () -> solver.findSolution(board));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
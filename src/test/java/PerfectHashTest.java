@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class PerfectHashTest {
+
+    @Test
+    public void givesEveryKeyItsOwnIndex() throws IOException {
+        var random = new SplittableRandom(1);
+        for (int count : new int[]{0, 1, 2, 63, 1000, 100_000}) {
+            var keys = random.longs(count).distinct().toArray();
+            var hash = PerfectHash.of(keys);
+
+            var bytes = new ByteArrayOutputStream();
+            hash.write(new DataOutputStream(bytes));
+            var read = PerfectHash.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(keys.length, hash.size());
+            assertEquals(keys.length, read.size());
+            var seen = new boolean[keys.length];
+            for (long key : keys) {
+                int index = hash.indexOf(key);
+                assertTrue(index >= 0 && index < keys.length && !seen[index]);
+                seen[index] = true;
+                assertEquals(index, read.indexOf(key));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsRepeatedKeys() {
+        assertThrows(IllegalArgumentException.class, () -> PerfectHash.of(new long[]{1, 2, 1}));
+    }
+}
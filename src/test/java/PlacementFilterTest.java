@@ -0,0 +1,31 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class PlacementFilterTest {
+
+    @Test
+    public void defaultFilterMatchesScalarFilter() {
+        var random = new SplittableRandom(42);
+        var scalar = new ScalarPlacementFilter();
+        for (int count = 1; count <= 200; count++) {
+            var masks = new long[count];
+            for (int p = 0; p < count; p++) {
+                // sparse masks, so that a fair share of the placements is free
+                masks[p] = random.nextLong() & random.nextLong() & random.nextLong();
+            }
+            var catSafe = random.longs(PlacementTable.wordsFor(count)).toArray();
+            long others = random.nextLong() & random.nextLong();
+
+            var expected = new long[catSafe.length + 1];
+            var actual = new long[catSafe.length + 1];
+            expected[catSafe.length] = 7;
+            actual[catSafe.length] = 7;
+            scalar.legal(masks, others, catSafe, expected);
+            PlacementFilter.DEFAULT.legal(masks, others, catSafe, actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+}
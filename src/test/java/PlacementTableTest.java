@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PlacementTableTest {
+
+    @Test
+    public void enumeratesEveryPlacementWithinBounds() {
+        var board = Board.from(List.of("a.", "a."));
+        var table = board.placementTable();
+
+        assertEquals(1, table.pieceCount());
+        assertEquals(8, table.placementCount(0)); // 4 rotations with 2 anchors each
+    }
+
+    @Test
+    public void singleSquareRotationsShareTheirPlacements() {
+        var board = Board.from(List.of("a..", "..."));
+
+        assertEquals(6, board.placementTable().placementCount(0));
+    }
+
+    @Test
+    public void flagsPlacementsPuttingNormalSquaresOnCats() {
+        var board = Board.from(List.of("aA", ".@"));
+        var table = board.placementTable();
+
+        int safe = 0;
+        for (int p = 0; p < table.placementCount(0); p++) {
+            var coversCat = (table.mask(0, p) & table.catMask()) != 0;
+            var boxOnCat = (table.boxMask(0, p) & table.catMask()) != 0;
+            assertEquals(!coversCat || boxOnCat, table.isCatSafe(0, p));
+            if (table.isCatSafe(0, p)) {
+                safe++;
+            }
+        }
+        assertTrue(safe > 0);
+        assertFalse(safe == table.placementCount(0));
+    }
+
+    @Test
+    public void forEachMoveMatchesGetMovesPerPiece() {
+        var board = PuzzleCatalogue.STARTER_1.board();
+        var moves = new ArrayList<Piece>();
+        board.forEachMove((piece, placement) -> moves.add(board.placementTable().piece(piece, placement)));
+
+        var expected = board.getMovesPerPiece().values().stream().flatMap(List::stream).toList();
+        assertEquals(expected.size(), moves.size());
+        assertTrue(moves.containsAll(expected));
+    }
+
+    @Test
+    public void rotationsCoveringTheSameCellsShareACanonicalKey() {
+        var board = Board.from(List.of("aa"));
+        var piece = board.pieces().getFirst();
+        var turned = board.makeMove(piece.rotateCounterClockwise().rotateCounterClockwise().withLocation(0, 1));
+        var table = board.placementTable();
+
+        assertNotEquals(board.encode(), turned.encode());
+        assertEquals(table.canonicalKey(board.encode()), table.canonicalKey(turned.encode()));
+    }
+
+    @Test
+    public void swappedIdenticalPiecesShareACanonicalKey() {
+        var board = Board.from(List.of("ab.."));
+        var pieces = board.pieces();
+        var a = pieces.get(0);
+        var b = pieces.get(1);
+        var table = board.placementTable();
+
+        var first = board.makeMove(a.withLocation(0, 2)).makeMove(b.withLocation(0, 3));
+        var second = board.makeMove(a.withLocation(0, 3)).makeMove(b.withLocation(0, 2));
+
+        assertNotEquals(first.encode(), second.encode());
+        assertEquals(table.canonicalKey(first.encode()), table.canonicalKey(second.encode()));
+        assertNotEquals(table.canonicalKey(board.encode()), table.canonicalKey(first.encode()));
+    }
+}
@@ -0,0 +1,33 @@
+import java.util.List;
+
+/**
+ * Named puzzles for benchmarks, from quick starter levels up to the deepest boards we know of.
+ */
+public enum PuzzleCatalogue {
+    STARTER_1(4, "@abB@", "Aa@b.", ".aAb.", "@cdDd", "cCc@d"),
+    MASTER_39(7, ".Aaab", "@a@bB", "cc.db", "C@Dd@", "c@.dD"),
+    MASTER_42(11, "a.@.b", "AabbB", "acDd@", "@C@dD", "cc@d."),
+    GENERATED_12(12, "..DdC", ".@@dc", "baadc", "b.aAc", "bBb@@"),
+    GENERATED_17(17, "bbb.D", ".@b@d", "@aBdd", "aACc@", "aacc."),
+    WIZARD_60(33, "@aAa.", ".b@a@", "bBCc.", "@bdcC", "ddDc@");
+
+    private final int optimalMoves;
+    private final List<String> rows;
+
+    PuzzleCatalogue(int optimalMoves, String... rows) {
+        this.optimalMoves = optimalMoves;
+        this.rows = List.of(rows);
+    }
+
+    public int optimalMoves() {
+        return optimalMoves;
+    }
+
+    public List<String> rows() {
+        return rows;
+    }
+
+    public Board board() {
+        return Board.from(rows);
+    }
+}
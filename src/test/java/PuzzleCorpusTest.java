@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PuzzleCorpusTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readsBackBoardsAndSolutions() throws IOException {
+        var file = directory.resolve("corpus.bin");
+        try (var writer = PuzzleCorpus.create(file)) {
+            for (var puzzle : PuzzleCatalogue.values()) {
+                var board = puzzle.board();
+                writer.add(board, new Solver().findSolution(board));
+            }
+            writer.add(Board.from(List.of("a@")), null);
+            writer.add(PuzzleCatalogue.STARTER_1.board());
+        }
+
+        var boards = new ArrayList<String>();
+        var optimalMoves = new ArrayList<Integer>();
+        try (var corpus = PuzzleCorpus.open(file)) {
+            assertEquals(PuzzleCatalogue.values().length + 2, corpus.count());
+            corpus.forEach(entry -> {
+                boards.add(entry.board().toString());
+                optimalMoves.add(entry.optimalMoves());
+                var solution = entry.solution();
+                if (solution != null) {
+                    assertTrue(solution.finalBoard().isFinished());
+                }
+            });
+        }
+
+        for (var puzzle : PuzzleCatalogue.values()) {
+            assertEquals(String.join("\n", puzzle.rows()), boards.get(puzzle.ordinal()));
+            assertEquals(puzzle.optimalMoves(), (int) optimalMoves.get(puzzle.ordinal()));
+        }
+        assertEquals(PuzzleCorpus.UNSOLVABLE, (int) optimalMoves.get(PuzzleCatalogue.values().length));
+        assertEquals(PuzzleCorpus.UNKNOWN, (int) optimalMoves.getLast());
+    }
+
+    @Test
+    public void storesLargeBoardsWithManyPieces() throws IOException {
+        var pieces = new ArrayList<Piece>();
+        for (int i = 0; i < 40; i++) {
+            var type = i % 3 == 0 ? Square.Type.BOX : Square.Type.NORMAL;
+            pieces.add(new PieceBuilder(i).add(i / 5, 2 * (i % 5), type).add(i / 5, 2 * (i % 5) + 1, Square.Type.NORMAL).build());
+        }
+        var board = Board.of(10, 10, pieces, List.of(new Cat(9, 9), new Cat(8, 0)));
+        var file = directory.resolve("corpus.bin");
+        try (var writer = PuzzleCorpus.create(file)) {
+            writer.add(board);
+        }
+
+        try (var corpus = PuzzleCorpus.open(file)) {
+            corpus.forEach(entry -> {
+                assertEquals(40, entry.pieceCount());
+                assertTrue(entry.isCat(9, 9));
+                assertNull(entry.solution());
+                assertEquals(board.toString(), entry.board().toString());
+            });
+        }
+    }
+
+    @Test
+    public void keepsRotationsOfPositionsAfterMoves() throws IOException {
+        var start = PuzzleCatalogue.MASTER_39.board();
+        var solution = new Solver().findSolution(start);
+        var halfway = start;
+        for (var move : solution.moves().subList(0, 3)) {
+            halfway = halfway.makeMove(move);
+        }
+        var rest = new Solution(halfway, solution.moves().subList(3, solution.movesMade()));
+        var file = directory.resolve("corpus.bin");
+        try (var writer = PuzzleCorpus.create(file)) {
+            writer.add(halfway, rest);
+        }
+
+        var expected = halfway.toString();
+        try (var corpus = PuzzleCorpus.open(file)) {
+            corpus.forEach(entry -> {
+                assertEquals(expected, entry.board().toString());
+                assertTrue(entry.solution().finalBoard().isFinished());
+            });
+        }
+    }
+
+    @Test
+    public void streamsThroughWindowsSmallerThanTheFile() throws IOException {
+        var file = directory.resolve("corpus.bin");
+        var puzzles = new ArrayList<String>();
+        try (var writer = PuzzleCorpus.create(file)) {
+            for (int i = 0; i < 50; i++) {
+                var puzzle = PuzzleCatalogue.values()[i % PuzzleCatalogue.values().length];
+                writer.add(puzzle.board());
+                puzzles.add(String.join("\n", puzzle.rows()));
+            }
+        }
+
+        var read = new ArrayList<String>();
+        try (var corpus = PuzzleCorpus.open(file, 300)) {
+            corpus.forEach(entry -> {
+                assertEquals(5, entry.rows());
+                read.add(entry.board().toString());
+            });
+        }
+        assertEquals(puzzles, read);
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        var file = directory.resolve("other.bin");
+        Files.writeString(file, "not a corpus at all");
+
+        assertThrows(IOException.class, () -> PuzzleCorpus.open(file));
+    }
+
+    @Test
+    public void rejectsTruncatedCorpora() throws IOException {
+        var file = directory.resolve("corpus.bin");
+        try (var writer = PuzzleCorpus.create(file)) {
+            writer.add(PuzzleCatalogue.WIZARD_60.board());
+        }
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (var corpus = PuzzleCorpus.open(file)) {
+            assertThrows(IOException.class, () -> corpus.forEach(entry -> {}));
+        }
+    }
+}
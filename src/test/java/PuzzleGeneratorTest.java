@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PuzzleGeneratorTest {
+
+    @Test
+    public void keepsSolvablePuzzlesWithinTheMoveRange() throws InterruptedException {
+        var spec = PuzzleGenerator.Spec.like(PuzzleCatalogue.STARTER_1.board());
+        var result = new PuzzleGenerator(2, 3, 8).generate(spec, 1_000, 42);
+
+        var stats = result.stats();
+        assertEquals(1_000, stats.candidates());
+        assertEquals(stats.candidates(), stats.accepted() + stats.unplaceable() + stats.duplicates() + stats.unsolvable()
+                + stats.trivial() + stats.tooDeep() + stats.overBudget());
+        assertFalse(result.buckets().isEmpty());
+        int kept = 0;
+        for (var bucket : result.buckets().entrySet()) {
+            assertTrue(bucket.getKey() >= 3 && bucket.getKey() <= 8);
+            for (var solution : bucket.getValue()) {
+                assertEquals((int) bucket.getKey(), solution.movesMade());
+                assertTrue(solution.finalBoard().isFinished());
+                assertEquals((int) bucket.getKey(), new Solver().findSolution(solution.start()).movesMade());
+                kept++;
+            }
+        }
+        assertEquals(stats.accepted(), kept);
+    }
+
+    @Test
+    public void keepsNoPuzzleThatIsPartOfAnotherOfItsFamily() throws InterruptedException {
+        // a single family, so every kept puzzle has the same cats
+        var spec = PuzzleGenerator.Spec.like(PuzzleCatalogue.STARTER_1.board());
+        var result = new PuzzleGenerator(1, 1, 20).generate(spec, 256, 11);
+
+        var solutions = result.buckets().values().stream().flatMap(List::stream).toList();
+        assertTrue(solutions.size() > 1);
+        assertTrue(result.stats().duplicates() > 0);
+        var starts = new HashSet<String>();
+        for (var solution : solutions) {
+            assertTrue(starts.add(solution.start().toString()));
+        }
+        for (var solution : solutions) {
+            var board = solution.start();
+            for (var move : solution.moves()) {
+                board = board.makeMove(move);
+                assertFalse(starts.contains(board.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesTheSamePuzzlesOnAnyNumberOfThreads() throws InterruptedException {
+        var spec = PuzzleGenerator.Spec.like(PuzzleCatalogue.MASTER_39.board());
+        var one = new PuzzleGenerator(1, 1, 20).generate(spec, 600, 7);
+        var four = new PuzzleGenerator(4, 1, 20).generate(spec, 600, 7);
+
+        assertEquals(one.buckets().keySet(), four.buckets().keySet());
+        one.buckets().forEach((moves, solutions) -> assertEquals(
+                solutions.stream().map(solution -> solution.start().toString()).toList(),
+                four.buckets().get(moves).stream().map(solution -> solution.start().toString()).toList()));
+    }
+
+    @Test
+    public void solvesEachCandidateWhenThePuzzleIsTooLargeForADistanceTable() throws InterruptedException {
+        var spec = PuzzleGenerator.Spec.like(PuzzleCatalogue.STARTER_1.board());
+        var budget = SearchBudget.UNLIMITED.withMaxStates(20);
+        var stats = new PuzzleGenerator(1, 1, 20, budget).generate(spec, 300, 3).stats();
+
+        assertTrue(stats.overBudget() > 0);
+        assertEquals(stats.candidates(), stats.accepted() + stats.unplaceable() + stats.duplicates() + stats.unsolvable()
+                + stats.trivial() + stats.tooDeep() + stats.overBudget());
+    }
+
+    @Test
+    public void rejectsInvalidSpecs() {
+        var pieces = PuzzleCatalogue.STARTER_1.board().pieces();
+
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator.Spec(5, 5, pieces, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator.Spec(5, 5, List.of(pieces.getFirst(), pieces.getFirst()), 3));
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(2, 5, 4));
+    }
+}
@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SolutionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger solves = new AtomicInteger();
+    private final Function<Board, Solution> countingSolver = board -> {
+        solves.incrementAndGet();
+        return new Solver().findSolution(board);
+    };
+
+    @Test
+    public void solvesOnlyOnce() throws IOException {
+        try (var cache = new SolutionCache(10, null, countingSolver)) {
+            assertEquals(7, cache.solve(PuzzleCatalogue.MASTER_39.rows()).movesMade());
+            assertEquals(7, cache.solve(PuzzleCatalogue.MASTER_39.rows()).movesMade());
+        }
+        assertEquals(1, solves.get());
+    }
+
+    @Test
+    public void renamedPiecesHitTheSameEntry() throws IOException {
+        var renamed = List.of(".Xxxq", "@x@qQ", "zz.kq", "Z@Kk@", "z@.kK");
+        assertEquals(SolutionCache.canonicalEncoding(PuzzleCatalogue.MASTER_39.rows()), SolutionCache.canonicalEncoding(renamed));
+
+        try (var cache = new SolutionCache(10, null, countingSolver)) {
+            cache.solve(PuzzleCatalogue.MASTER_39.rows());
+            var solution = cache.solve(renamed);
+            assertEquals(1, solves.get());
+            assertTrue(solution.finalBoard().isFinished());
+        }
+    }
+
+    @Test
+    public void solutionsSurviveRestarts() throws IOException {
+        var file = directory.resolve("solutions.bin");
+        try (var cache = new SolutionCache(10, file, countingSolver)) {
+            cache.solve(PuzzleCatalogue.MASTER_39.rows());
+            assertNull(cache.solve(List.of("a@")));
+        }
+        try (var cache = new SolutionCache(10, file, countingSolver)) {
+            var solution = cache.solve(PuzzleCatalogue.MASTER_39.rows());
+            assertEquals(7, solution.movesMade());
+            assertTrue(solution.finalBoard().isFinished());
+            assertNull(cache.solve(List.of("a@")));
+        }
+        assertEquals(2, solves.get());
+    }
+
+    @Test
+    public void evictedEntriesAreReadBackFromDisk() throws IOException {
+        try (var cache = new SolutionCache(1, directory.resolve("solutions.bin"), countingSolver)) {
+            cache.solve(PuzzleCatalogue.MASTER_39.rows());
+            cache.solve(List.of("a@"));
+            assertEquals(7, cache.solve(PuzzleCatalogue.MASTER_39.rows()).movesMade());
+        }
+        assertEquals(2, solves.get());
+    }
+
+    @Test
+    public void cachesPuzzlesWithHundredsOfPieces() throws IOException {
+        var rows = hundredsOfPieces(0);
+        var renamed = hundredsOfPieces(7);
+        var canonical = SolutionCache.canonicalEncoding(rows);
+        assertEquals(canonical, SolutionCache.canonicalEncoding(renamed));
+        assertEquals(2, Board.from(List.of(canonical.split("/"))).rows());
+
+        // the box is the 301st letter to appear
+        Function<Board, Solution> boxToCat = board -> {
+            solves.incrementAndGet();
+            if (board.rows() == 1) {
+                return null;
+            }
+            return new Solution(board, List.of(new Move(board.getPieceAt(1, 0).orElseThrow().id(), 0, 1, 299)));
+        };
+        try (var cache = new SolutionCache(1, directory.resolve("solutions.bin"), boxToCat)) {
+            assertTrue(cache.solve(rows).finalBoard().isFinished());
+            assertNull(cache.solve(List.of("a@")));
+            assertTrue(cache.solve(renamed, Board.from(renamed)).finalBoard().isFinished());
+        }
+        assertEquals(2, solves.get());
+    }
+
+    /**
+     * A row of 300 single squares, each its own piece, above a box that has to reach the cat at the far end. Piece
+     * ids start at the given one.
+     */
+    private static List<String> hundredsOfPieces(int firstId) {
+        var pieces = new StringBuilder();
+        for (int id = firstId; id < firstId + 300; id++) {
+            pieces.append(Board.pieceLetter(id));
+        }
+        return List.of(pieces.toString(), Character.toUpperCase(Board.pieceLetter(firstId + 300)) + ".".repeat(298) + "@");
+    }
+}
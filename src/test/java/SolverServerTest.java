@@ -0,0 +1,148 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class SolverServerTest {
+
+    private static final String MASTER_39 = ".Aaab\n@a@bB\ncc.db\nC@Dd@\nc@.dD\n";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void solvesPostedPuzzles() throws IOException, InterruptedException {
+        try (var server = new SolverServer(new InetSocketAddress("localhost", 0), 2, 2, Duration.ofMinutes(1))) {
+            server.start();
+
+            var first = post(server, MASTER_39);
+            var second = post(server, MASTER_39);
+            assertEquals(200, first.statusCode());
+            assertEquals(first.body(), second.body());
+            var lines = first.body().lines().toList();
+            assertEquals("solved 7", lines.getFirst());
+            assertEquals(8, lines.size());
+
+            assertEquals("unsolvable 0", post(server, "a@\n").body().strip());
+            assertEquals(400, post(server, "a#\n").statusCode());
+            assertEquals(400, post(server, "").statusCode());
+
+            var metrics = get(server, "/metrics").body();
+            assertTrue(metrics.contains("solver_searches_total 2\n"), metrics);
+            assertTrue(metrics.contains("solver_request_seconds_count{outcome=\"solved\"} 2\n"), metrics);
+            assertTrue(metrics.contains("solver_request_seconds_count{outcome=\"invalid\"} 2\n"), metrics);
+            assertTrue(metrics.contains("solver_in_flight 0\n"), metrics);
+        }
+    }
+
+    @Test
+    public void rejectsRequestsBeyondTheQueue() throws IOException, InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var solver = new Solver();
+        SolverServer.Engine engine = (board, budget) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return solver.search(board, SolverListener.NONE, budget);
+        };
+        try (var server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 0, Duration.ofMinutes(1), engine)) {
+            server.start();
+
+            var blocked = client.sendAsync(request(server, "/solve", MASTER_39), HttpResponse.BodyHandlers.ofString());
+            started.await();
+            var rejected = post(server, MASTER_39);
+            release.countDown();
+
+            assertEquals(503, rejected.statusCode());
+            assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+            assertEquals(200, blocked.join().statusCode());
+            assertTrue(get(server, "/metrics").body().contains("solver_request_seconds_count{outcome=\"rejected\"} 1\n"));
+        }
+    }
+
+    @Test
+    public void answersCachedPuzzlesWhileSolverThreadsAreBusy() throws IOException, InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var solver = new Solver();
+        SolverServer.Engine engine = (board, budget) -> {
+            if (board.rows() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return solver.search(board, SolverListener.NONE, budget);
+        };
+        try (var server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 0, Duration.ofMinutes(1), engine)) {
+            server.start();
+            assertEquals(200, post(server, MASTER_39).statusCode());
+
+            var blocked = client.sendAsync(request(server, "/solve", "a@\n"), HttpResponse.BodyHandlers.ofString());
+            started.await();
+            var cached = post(server, MASTER_39);
+            release.countDown();
+
+            assertEquals(200, cached.statusCode());
+            assertEquals("solved 7", cached.body().lines().findFirst().orElseThrow());
+            assertEquals(200, blocked.join().statusCode());
+        }
+    }
+
+    @Test
+    public void malformedPuzzlesAreBadRequests() throws IOException, InterruptedException {
+        try (var server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 0, Duration.ofMinutes(1))) {
+            server.start();
+
+            var ragged = post(server, "..\naaA\n");
+            assertEquals(400, ragged.statusCode());
+            assertEquals("Row 1 has 3 cells, but the first row has 2.\n", ragged.body());
+            assertEquals(400, post(server, "a.@\n.@\n").statusCode());
+            var metrics = get(server, "/metrics").body();
+            assertTrue(metrics.contains("solver_request_seconds_count{outcome=\"invalid\"} 2\n"), metrics);
+            assertTrue(metrics.contains("solver_request_seconds_count{outcome=\"failed\"} 0\n"), metrics);
+        }
+    }
+
+    @Test
+    public void failingSearchesAreServerErrors() throws IOException, InterruptedException {
+        SolverServer.Engine engine = (board, budget) -> {
+            throw new IllegalStateException("Engine is broken.");
+        };
+        try (var server = new SolverServer(new InetSocketAddress("localhost", 0), 1, 0, Duration.ofMinutes(1), engine)) {
+            server.start();
+
+            assertEquals(500, post(server, MASTER_39).statusCode());
+            assertEquals(400, post(server, "a#\n").statusCode());
+        }
+    }
+
+    private HttpResponse<String> post(SolverServer server, String puzzle) throws IOException, InterruptedException {
+        return client.send(request(server, "/solve", puzzle), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(SolverServer server, String path) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest request(SolverServer server, String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
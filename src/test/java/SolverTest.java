@@ -1,6 +1,12 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import org.junit.jupiter.api.Test;
 
@@ -43,4 +49,177 @@ public class SolverTest {
 
         assertEquals(33, res.getMovesMade());
     }
+
+    @Test
+    public void solutionListsMovesInOrder() {
+        Board board = Board.from(List.of("@abB@", "Aa@b.", ".aAb.", "@cdDd", "cCc@d"));
+
+        var solution = new Solver().findSolution(board);
+        assertEquals(4, solution.movesMade());
+
+        var replayed = board;
+        for (Move move : solution.moves()) {
+            replayed = replayed.makeMove(move);
+        }
+        assertTrue(replayed.isFinished());
+        assertEquals(4, replayed.getMovesMade());
+    }
+
+    @Test
+    public void symmetryReductionKeepsOptimalMoveCounts() {
+        var plain = new Solver(() -> VisitedSet.onHeap(1 << 10), false);
+        var reduced = new Solver(() -> VisitedSet.onHeap(1 << 10), true);
+
+        for (var rows : List.of(List.of("aAb@", "..B.", "@c.C"), List.of(".Aaab", "@a@bB", "cc.db", "C@Dd@", "c@.dD"))) {
+            assertEquals(plain.findSolution(Board.from(rows)).movesMade(), reduced.findSolution(Board.from(rows)).movesMade());
+        }
+    }
+
+    @Test
+    public void commutingMoveReductionKeepsOptimalMoveCounts() {
+        var plain = new Solver(() -> VisitedSet.onHeap(1 << 10), true, false);
+        var reduced = new Solver(() -> VisitedSet.onHeap(1 << 10), true, true);
+
+        for (var puzzle : PuzzleCatalogue.values()) {
+            var full = plain.search(puzzle.board(), SolverListener.NONE);
+            var pruned = reduced.search(puzzle.board(), SolverListener.NONE);
+            assertEquals(puzzle.optimalMoves(), pruned.solution().movesMade());
+            assertTrue(pruned.solution().finalBoard().isFinished());
+            assertTrue(pruned.stats().movesGenerated() < full.stats().movesGenerated());
+        }
+    }
+
+    @Test
+    public void searchReportsStatsPerDepth() {
+        Board board = Board.from(List.of(".Aaab", "@a@bB", "cc.db", "C@Dd@", "c@.dD"));
+        var reported = new ArrayList<DepthStats>();
+        var finished = new ArrayList<SolverStats>();
+
+        var result = new Solver().search(board, new SolverListener() {
+            @Override
+            public void onDepthCompleted(DepthStats depth) {
+                reported.add(depth);
+            }
+
+            @Override
+            public void onFinished(SolverStats stats) {
+                finished.add(stats);
+            }
+        });
+
+        var stats = result.stats();
+        assertEquals(7, result.solution().movesMade());
+        assertEquals(8, stats.depths().size());
+        assertEquals(stats.depths(), reported);
+        assertEquals(List.of(stats), finished);
+        assertEquals(1, stats.depths().getFirst().frontierSize());
+        assertEquals(stats.movesGenerated(), stats.duplicatesSkipped() + stats.visitedSize() - 1);
+        assertTrue(stats.peakFrontierSize() > 1);
+    }
+
+    @Test
+    public void solvesBoardsBeyondSixtyFourCells() {
+        var rows = new ArrayList<String>();
+        for (int row = 0; row < 9; row++) {
+            rows.add(".".repeat(8));
+        }
+        rows.set(0, "aA.....@");
+        rows.set(4, "..bB....");
+        rows.set(8, "@.......");
+        var board = Board.from(rows);
+
+        var solution = new Solver().findSolution(board);
+        assertEquals(2, solution.movesMade());
+        assertTrue(solution.finalBoard().isFinished());
+        assertNull(new Solver().findSolution(Board.from(List.of("a" + ".".repeat(70) + "@"))));
+    }
+
+    @Test
+    public void solvesPuzzlesWhoseKeysNeedMoreThanSixtyFourBits() {
+        // eleven single squares with 40 placements each need 66 bits
+        Board board = Board.from(List.of("ABcdefgh", "ijk.....", "........", "........", "......@@"));
+
+        var solution = new Solver().findSolution(board);
+        assertEquals(2, solution.movesMade());
+        assertTrue(solution.finalBoard().isFinished());
+    }
+
+    @Test
+    public void boardsBeyondSixtyFourCellsExploreEveryPositionOnceUpToSymmetry() {
+        var padding = ".".repeat(22);
+        var board = Board.from(List.of("A.@" + padding, "B.@" + padding, "C.@" + padding));
+        var plain = new Solver(() -> VisitedSet.onHeap(1 << 10), false).search(board, SolverListener.NONE);
+        var reduced = new Solver(() -> VisitedSet.onHeap(1 << 10), true).search(board, SolverListener.NONE);
+
+        assertEquals(3, plain.solution().movesMade());
+        assertEquals(3, reduced.solution().movesMade());
+        // the three boxes are identical, so a set of cells they cover is one position instead of up to six
+        assertTrue(reduced.stats().visitedSize() < plain.stats().visitedSize());
+        for (var result : List.of(plain, reduced)) {
+            var stats = result.stats();
+            assertEquals(stats.movesGenerated(), stats.duplicatesSkipped() + stats.visitedSize() - 1);
+        }
+    }
+
+    @Test
+    public void unsolvableReturnsNull() {
+        Board board = Board.from(List.of("a@"));
+
+        assertNull(new Solver().findSolution(board));
+        assertNull(new Solver().solve(board));
+    }
+
+    @Test
+    public void budgetedSearchStopsWithALowerBound() {
+        Board board = Board.from(List.of("@aAa.", ".b@a@", "bBCc.", "@bdcC", "ddDc@"));
+        var solver = new Solver();
+
+        var full = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED);
+        assertEquals(Solver.Outcome.SOLVED, full.outcome());
+        assertEquals(33, full.lowerBound());
+        assertEquals(full.solution(), full.closest());
+
+        var nodes = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED.withMaxNodes(100));
+        assertEquals(Solver.Outcome.NODE_LIMIT, nodes.outcome());
+        assertNull(nodes.solution());
+        assertTrue(nodes.lowerBound() > 0 && nodes.lowerBound() < 33);
+        assertEquals(100, nodes.stats().nodesExpanded());
+        assertTrue(nodes.closest().movesMade() < nodes.lowerBound() + 1);
+
+        var states = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED.withMaxStates(50));
+        assertEquals(Solver.Outcome.STATE_LIMIT, states.outcome());
+        assertTrue(states.stats().visitedSize() >= 50);
+
+        var time = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED.withMaxTime(Duration.ZERO));
+        assertEquals(Solver.Outcome.TIME_LIMIT, time.outcome());
+        assertEquals(0, time.lowerBound());
+        assertEquals(0, time.closest().movesMade());
+    }
+
+    @Test
+    public void budgetedSearchCanBeCancelled() {
+        Board board = Board.from(List.of("@aAa.", ".b@a@", "bBCc.", "@bdcC", "ddDc@"));
+        var solver = new Solver();
+
+        var cancelled = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED.withCancellation(() -> true));
+        assertEquals(Solver.Outcome.CANCELLED, cancelled.outcome());
+
+        Thread.currentThread().interrupt();
+        try {
+            var interrupted = solver.search(board, SolverListener.NONE, SearchBudget.UNLIMITED);
+            assertEquals(Solver.Outcome.CANCELLED, interrupted.outcome());
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertThrows(CancellationException.class, () -> solver.findSolution(board));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void unsolvableSearchIsExhausted() {
+        var result = new Solver().search(Board.from(List.of("a@")), SolverListener.NONE, SearchBudget.UNLIMITED);
+
+        assertEquals(Solver.Outcome.UNSOLVABLE, result.outcome());
+        assertNull(result.solution());
+    }
 }
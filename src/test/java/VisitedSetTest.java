@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class VisitedSetTest {
+
+    @Test
+    public void addsAndFindsKeysOnHeap() {
+        assertAddsAndFindsKeys(VisitedSet.onHeap(4));
+    }
+
+    @Test
+    public void addsAndFindsKeysOffHeap() {
+        assertAddsAndFindsKeys(VisitedSet.offHeap(4));
+    }
+
+    @Test
+    public void freesOffHeapSlotsOnClose() {
+        var set = VisitedSet.offHeap(4);
+        for (long key = 1; key <= 100_000; key++) {
+            set.add(key);
+        }
+        assertTrue(set.contains(100_000));
+        set.close();
+        set.close();
+    }
+
+    @Test
+    public void reservesCapacityForExpectedSize() {
+        var set = VisitedSet.onHeap(1000);
+        var capacity = set.capacity();
+        for (long key = 0; key < 1000; key++) {
+            set.add(key);
+        }
+        assertEquals(capacity, set.capacity());
+    }
+
+    @Test
+    public void solverWorksWithOffHeapSet() {
+        Board board = PuzzleCatalogue.MASTER_39.board();
+
+        var res = new Solver(() -> VisitedSet.offHeap(1 << 10)).solve(board);
+        assertEquals(7, res.getMovesMade());
+    }
+
+    private static void assertAddsAndFindsKeys(VisitedSet set) {
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        for (long key = 1; key <= 10_000; key++) {
+            assertTrue(set.add(key * 0x9E3779B97F4A7C15L));
+        }
+        for (long key = 1; key <= 10_000; key++) {
+            assertFalse(set.add(key * 0x9E3779B97F4A7C15L));
+            assertTrue(set.contains(key * 0x9E3779B97F4A7C15L));
+        }
+        assertFalse(set.contains(-1));
+        assertTrue(set.contains(0));
+        assertEquals(10_001, set.size());
+    }
+}
@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class WideKeySetTest {
+
+    @Test
+    public void addsAndFindsKeysInTheOrderAdded() {
+        var set = new WideKeySet(3, 4);
+        var keys = new long[3 * 10_000];
+        for (int i = 0; i < 10_000; i++) {
+            keys[3 * i] = i;
+            keys[3 * i + 2] = i % 7;
+            assertTrue(set.add(keys, 3 * i));
+        }
+
+        assertEquals(10_000, set.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(set.add(keys, 3 * i));
+            assertEquals(i, set.indexOf(keys, 3 * i));
+        }
+        assertEquals(10_000, set.size());
+    }
+
+    @Test
+    public void tellsApartKeysThatDifferInOneWord() {
+        var set = new WideKeySet(2, 4);
+
+        assertTrue(set.add(new long[]{0, 0}, 0));
+        assertTrue(set.add(new long[]{0, 1}, 0));
+        assertTrue(set.add(new long[]{1, 0}, 0));
+        assertTrue(set.contains(new long[]{9, 0, 1}, 1));
+        assertFalse(set.contains(new long[]{1, 1}, 0));
+        assertEquals(-1, set.indexOf(new long[]{1, 1}, 0));
+    }
+}